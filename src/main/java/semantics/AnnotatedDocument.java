@@ -0,0 +1,20 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Document;
+import edu.stanford.nlp.simple.Sentence;
+
+import java.util.List;
+
+/**
+ * A document split into its units, passed between the
+ * stages of {@link DocumentProcessor}.
+ */
+class AnnotatedDocument {
+    final Document document;
+    final List<Sentence> sentences;
+
+    AnnotatedDocument(Document document, List<Sentence> sentences) {
+        this.document = document;
+        this.sentences = sentences;
+    }
+}
@@ -0,0 +1,139 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Document;
+import edu.stanford.nlp.simple.Sentence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The minimal set of CoreNLP annotators needed by a processor.
+ * It's derived from the requested pre-processing steps and
+ * features, and is used to run every needed annotator exactly
+ * once per document before any feature is extracted.
+ */
+public class AnnotationPlan {
+    public final static String TOKENIZE = "tokenize";
+    public final static String SSPLIT = "ssplit";
+    public final static String POS = "pos";
+    public final static String LEMMA = "lemma";
+    public final static String NER = "ner";
+    public final static String PARSE = "parse";
+    public final static String DEPPARSE = "depparse";
+    public final static String MENTION = "mention";
+    public final static String COREF = "coref";
+    public final static String NATLOG = "natlog";
+    public final static String OPENIE = "openie";
+    public final static String SENTIMENT = "sentiment";
+
+    private boolean lemmas;
+    private boolean partsOfSpeech;
+    private boolean entities;
+    private boolean corefs;
+    private boolean relations;
+    private boolean sentiment;
+
+    public AnnotationPlan lemmas() {
+        lemmas = true;
+        return this;
+    }
+
+    public AnnotationPlan partsOfSpeech() {
+        partsOfSpeech = true;
+        return this;
+    }
+
+    public AnnotationPlan entities() {
+        entities = true;
+        return this;
+    }
+
+    public AnnotationPlan corefs() {
+        corefs = true;
+        return this;
+    }
+
+    public AnnotationPlan relations() {
+        relations = true;
+        return this;
+    }
+
+    public AnnotationPlan sentiment() {
+        sentiment = true;
+        return this;
+    }
+
+    boolean needsPos() {
+        return partsOfSpeech || lemmas || entities || corefs || relations;
+    }
+
+    boolean needsLemmas() {
+        return lemmas || entities || corefs || relations;
+    }
+
+    boolean needsEntities() {
+        return entities || corefs;
+    }
+
+    /**
+     * Lists the annotators of this plan in the order
+     * they need to run.
+     * @return The names of the CoreNLP annotators.
+     */
+    public List<String> annotators() {
+        List<String> annotators = new ArrayList<>();
+        annotators.add(TOKENIZE);
+        annotators.add(SSPLIT);
+
+        if (needsPos())
+            annotators.add(POS);
+        if (needsLemmas())
+            annotators.add(LEMMA);
+        if (needsEntities())
+            annotators.add(NER);
+        if (sentiment)
+            annotators.add(PARSE);
+        if (corefs || relations)
+            annotators.add(DEPPARSE);
+        if (corefs) {
+            annotators.add(MENTION);
+            annotators.add(COREF);
+        }
+        if (relations) {
+            annotators.add(NATLOG);
+            annotators.add(OPENIE);
+        }
+        if (sentiment)
+            annotators.add(SENTIMENT);
+
+        return annotators;
+    }
+
+    /**
+     * Runs the annotators of this plan on a document. CoreNLP
+     * caches the annotations, so reading tags, lemmas, entities,
+     * relations, or sentiment afterwards doesn't annotate
+     * anything again.
+     * @param document The document to annotate.
+     * @param sentences The sentences of the document as split
+     *                  by the processor's unit breaker.
+     */
+    public void annotate(Document document, List<Sentence> sentences) {
+        if (corefs) {
+            document.coref();
+        }
+
+        for (Sentence sentence : sentences) {
+            if (needsPos())
+                sentence.posTags();
+            if (needsLemmas())
+                sentence.lemmas();
+            if (needsEntities())
+                sentence.nerTags();
+            if (relations)
+                sentence.openieTriples();
+            if (sentiment)
+                sentence.sentiment();
+        }
+    }
+}
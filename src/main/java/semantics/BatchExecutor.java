@@ -0,0 +1,174 @@
+package semantics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs batches of documents on a pool of workers, keeping only a
+ * bounded number of them in flight and handing the results over in
+ * input order. Used by {@link DocumentProcessor#processDocuments(Iterable)}
+ * and {@link semantics.information.InformationExtractor#extractAll(Iterable)}.
+ */
+public class BatchExecutor {
+    private final String threadName;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int maxInFlight; // derived from the number of workers unless set
+    private ExecutorService executor;
+    private boolean ownsExecutor;
+    private IBatchListener listener;
+
+    /**
+     * @param threadName The name of the threads of the pool this creates,
+     *                   followed by the number of each thread.
+     */
+    public BatchExecutor(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * Sets the number of workers of the pool. The pool is created by the
+     * first batch, after which the number of workers can't change.
+     * @param parallelism The number of worker threads.
+     */
+    public synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("At least one worker is needed, got " + parallelism);
+        if (ownsExecutor && parallelism != this.parallelism)
+            throw new IllegalStateException("The pool already has " + this.parallelism + " workers");
+
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the maximum number of documents in flight. By default
+     * it's twice the number of workers.
+     * @param maxInFlight The maximum number of documents in flight.
+     */
+    public synchronized void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("At least one document must be in flight, got " + maxInFlight);
+
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Uses an existing executor instead of creating a pool. The caller
+     * owns its life cycle; a pool created earlier is shut down.
+     * @param executor The executor to run documents on.
+     */
+    public synchronized void setExecutor(ExecutorService executor) {
+        if (ownsExecutor)
+            this.executor.shutdown();
+
+        this.executor = executor;
+        ownsExecutor = false;
+    }
+
+    public void setListener(IBatchListener listener) {
+        this.listener = listener;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, threadName + "-" + threads.getAndIncrement());
+                thread.setDaemon(true); // an idle pool shouldn't keep the JVM alive
+                return thread;
+            });
+            ownsExecutor = true;
+        }
+
+        return executor;
+    }
+
+    /**
+     * @return The number of workers documents run on, or 0 if
+     * it's unknown (an executor of an unknown kind was given).
+     */
+    public synchronized int workers() {
+        if (executor == null || ownsExecutor)
+            return parallelism;
+        if (executor instanceof ThreadPoolExecutor)
+            return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        if (executor instanceof ForkJoinPool)
+            return ((ForkJoinPool) executor).getParallelism();
+
+        return 0;
+    }
+
+    /**
+     * @return The maximum number of documents in flight.
+     */
+    public synchronized int maxInFlight() {
+        if (maxInFlight > 0)
+            return maxInFlight;
+
+        int workers = workers();
+        return 2 * (workers > 0 ? workers : parallelism);
+    }
+
+    /**
+     * Runs a batch of documents and hands each result, in input order,
+     * to a consumer as soon as it and all the ones before it are done.
+     * If a document fails, the ones still in flight are cancelled and
+     * the failure is thrown.
+     * @param texts The documents.
+     * @param work Processes a single document.
+     * @param consumer Receives the result of every document in input order.
+     * @param <T> The result of a document.
+     */
+    public <T> void run(Iterable<String> texts, Function<String, T> work, Consumer<T> consumer) {
+        ExecutorService workers = getExecutor();
+        int maxInFlight = maxInFlight();
+        Deque<Future<T>> inFlight = new ArrayDeque<>(maxInFlight);
+        long start = System.nanoTime();
+        int count = 0;
+
+        try {
+            for (String text : texts) {
+                if (inFlight.size() >= maxInFlight) {
+                    consumer.accept(await(inFlight.poll()));
+                }
+
+                inFlight.add(workers.submit(() -> work.apply(text)));
+                count++;
+            }
+
+            while (!inFlight.isEmpty()) {
+                consumer.accept(await(inFlight.poll()));
+            }
+        } catch (RuntimeException | Error ex) {
+            // nobody will read the rest
+            inFlight.forEach(future -> future.cancel(true));
+            throw ex;
+        }
+
+        if (listener != null) {
+            listener.batchProcessed(new BatchReport(count, System.nanoTime() - start, workers()));
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package semantics;
+
+/**
+ * Throughput statistics of a single batch processed by
+ * {@link DocumentProcessor#processDocuments(Iterable)}.
+ */
+public class BatchReport {
+    public final int documents;
+    public final long elapsedNanos;
+    /* the number of workers, 0 if the executor doesn't tell */
+    public final int parallelism;
+
+    public BatchReport(int documents, long elapsedNanos, int parallelism) {
+        this.documents = documents;
+        this.elapsedNanos = elapsedNanos;
+        this.parallelism = parallelism;
+    }
+
+    public double documentsPerSecond() {
+        return elapsedNanos == 0 ? 0 : documents / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d documents in %.3f s (%.2f docs/s, %s workers)",
+                documents, elapsedNanos / 1e9, documentsPerSecond(),
+                parallelism > 0 ? String.valueOf(parallelism) : "unknown");
+    }
+}
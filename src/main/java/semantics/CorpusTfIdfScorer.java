@@ -0,0 +1,75 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Token;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A TF-IDF scorer which uses document frequencies collected from
+ * a corpus. TF is log-normalized like in
+ * {@link DocumentProcessor#tfUnaryIdf}, and IDF is smoothed:
+ * idf = 1 + log10((1 + N) / (1 + df)), with df clamped to N.
+ */
+public class CorpusTfIdfScorer implements ITfIdfScorer {
+    private final IDocumentFrequencies frequencies;
+    private final DocumentFrequencyIndex index;
+
+    /**
+     * Creates a scorer which adds every scored document
+     * to the index before scoring it.
+     * @param index The index to update and score with.
+     */
+    public CorpusTfIdfScorer(DocumentFrequencyIndex index) {
+        this.frequencies = index;
+        this.index = index;
+    }
+
+    /**
+     * Creates a scorer which only reads document frequencies,
+     * e.g. from a {@link DocumentFrequencyIndex.Snapshot}.
+     * @param frequencies The document frequencies to score with.
+     */
+    public CorpusTfIdfScorer(IDocumentFrequencies frequencies) {
+        this.frequencies = frequencies;
+        this.index = null;
+    }
+
+    @Override
+    public List<TfIdfTerm> score(List<Token> allTerms) {
+        HashMap<String, TfIdfTerm> terms = new HashMap<>(allTerms.size());
+        List<TfIdfTerm> tfIdfs = new ArrayList<>(allTerms.size());
+
+        for (Token token : allTerms) {
+            TfIdfTerm term = terms.get(token.originalText());
+
+            if (term == null) {
+                term = new TfIdfTerm(token.originalText(), 0);
+                terms.put(term.term, term);
+                tfIdfs.add(term);
+            }
+
+            term.tf++;
+        }
+
+        if (index != null) {
+            index.addDocument(terms.keySet());
+        }
+
+        long documents = frequencies.documents();
+
+        for (TfIdfTerm term : tfIdfs) {
+            term.idf = idf(frequencies.documentFrequency(term.term), documents);
+            term.tfIdf = (1 + Math.log10(term.tf)) * term.idf;
+        }
+
+        return tfIdfs;
+    }
+
+    static double idf(long documentFrequency, long documents) {
+        // the counts aren't read atomically, so a term could seem to be in more documents than there are
+        documentFrequency = Math.min(documentFrequency, documents);
+        return 1 + Math.log10((1.0 + documents) / (1.0 + documentFrequency));
+    }
+}
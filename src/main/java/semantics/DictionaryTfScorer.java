@@ -0,0 +1,51 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Same as {@link DocumentProcessor#tfUnaryIdf} (IDF is 1 and TF is
+ * log-normalized) but terms are interned in a {@link TermDictionary}
+ * and counted in an int array, and the weight of every term is
+ * computed once after counting.
+ */
+public class DictionaryTfScorer implements ITfIdfScorer {
+    private final TermDictionary dictionary;
+
+    public DictionaryTfScorer(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public List<TfIdfTerm> score(List<Token> allTerms) {
+        IntIntMap slots = new IntIntMap(allTerms.size());
+        String[] terms = new String[allTerms.size()];
+        int[] counts = new int[allTerms.size()];
+        int distinct = 0;
+
+        for (Token token : allTerms) {
+            String text = token.originalText();
+            int id = dictionary.intern(text);
+            int slot = slots.get(id, -1);
+
+            if (slot < 0) {
+                slot = distinct++;
+                slots.put(id, slot);
+                terms[slot] = text;
+            }
+
+            counts[slot]++;
+        }
+
+        List<TfIdfTerm> tfIdfs = new ArrayList<>(distinct);
+        for (int slot = 0; slot < distinct; slot++) {
+            TfIdfTerm term = new TfIdfTerm(terms[slot], 1 + Math.log10(counts[slot]));
+            term.tf = counts[slot];
+            tfIdfs.add(term);
+        }
+
+        return tfIdfs;
+    }
+}
@@ -0,0 +1,12 @@
+package semantics;
+
+/**
+ * The vectors of a document computed from the same embeddings in
+ * a single pass over its tokens. Vectors which weren't asked
+ * for are null.
+ */
+public class DocumentEmbeddings {
+    public double[] mean;
+    public double[] tfIdfMean;
+    public double[] sif;
+}
@@ -4,7 +4,8 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeCreator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -14,6 +15,21 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class DocumentFeatures {
+    /*
+     * Mappers are thread-safe once configured, and keep the serializers they
+     * introspect, so they're created once and shared by all documents
+     * (and by FeaturesWriter and FeaturesReader).
+     */
+    final static ObjectMapper jsonMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+    final static ObjectMapper msgpackMapper = new ObjectMapper(new MessagePackFactory())
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+
+    final static ObjectWriter jsonWriter = jsonMapper.writerFor(DocumentFeatures.class);
+    final static ObjectReader jsonReader = jsonMapper.readerFor(DocumentFeatures.class);
+    final static ObjectWriter msgpackWriter = msgpackMapper.writerFor(DocumentFeatures.class);
+    final static ObjectReader msgpackReader = msgpackMapper.readerFor(DocumentFeatures.class);
+
     public List<String> ngrams;
     public List<String> partsOfSpeech;
     public Sentiment sentiment;
@@ -28,6 +44,10 @@ public class DocumentFeatures {
     public List<TfIdfTerm> tfIdf;
     public double[] word2Vec;
     public double[] gloVe;
+    public double[] word2VecTfIdf;
+    public double[] word2VecSif;
+    public double[] gloVeTfIdf;
+    public double[] gloVeSif;
 
     /**
      * Creates a JSON representation of the object.
@@ -36,22 +56,30 @@ public class DocumentFeatures {
      * @return An object node to the root JSON object.
      */
     public ObjectNode toJson() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
-        return mapper.valueToTree(this);
+        return jsonMapper.valueToTree(this);
+    }
+
+    /**
+     * Creates the JSON text of the object without
+     * building a tree first.
+     * @return The UTF-8 bytes of the JSON text.
+     */
+    public byte[] toJsonBytes() {
+        try {
+            return jsonWriter.writeValueAsBytes(this);
+        } catch (JsonProcessingException ex) {
+            ex.printStackTrace();
+            return null;
+        }
     }
 
     /**
      * Creates a MsgPack representation of the object.
-     * Note: its performance is not tested and still
-     * questionable.
      * @return A byte array of the MsgPack
      */
     public byte[] toMsgpackBytes() {
-        ObjectMapper mapper = new ObjectMapper(new MessagePackFactory());
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
         try {
-            return mapper.writeValueAsBytes(this);
+            return msgpackWriter.writeValueAsBytes(this);
         } catch (JsonProcessingException ex) {
             return null;
         }
@@ -64,9 +92,23 @@ public class DocumentFeatures {
      * @return The corresponding instance of DocumentsFeatures.
      */
     public static DocumentFeatures fromJson(TreeNode object) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.treeToValue(object, DocumentFeatures.class);
+            return jsonMapper.treeToValue(object, DocumentFeatures.class);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Deserializes JSON text into an instance
+     * of DocumentsFeatures.
+     * @param buffer The UTF-8 bytes of the JSON text.
+     * @return The corresponding instance of DocumentsFeatures.
+     */
+    public static DocumentFeatures fromJsonBytes(byte[] buffer) {
+        try {
+            return jsonReader.readValue(buffer);
         } catch (IOException ex) {
             ex.printStackTrace();
             return null;
@@ -80,9 +122,8 @@ public class DocumentFeatures {
      * @return The corresponding instance of DocumentsFeatures.
      */
     public static DocumentFeatures fromMsgPack(byte[] buffer) {
-        ObjectMapper mapper = new ObjectMapper(new MessagePackFactory());
         try {
-            return mapper.readValue(buffer, DocumentFeatures.class);
+            return msgpackReader.readValue(buffer);
         } catch (IOException ex) {
             ex.printStackTrace();
             return null;
@@ -96,9 +137,7 @@ public class DocumentFeatures {
      * @return
      */
     public static ArrayNode createJsonArray(Iterable<DocumentFeatures> documents) {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
-        return mapper.valueToTree(documents);
+        return jsonMapper.valueToTree(documents);
     }
 
 
@@ -0,0 +1,147 @@
+package semantics;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Document frequencies of terms, updated incrementally as documents
+ * are processed. Counters are striped (LongAdder) so concurrent
+ * workers updating the same frequent terms don't contend. Reads are
+ * lock-free and see the latest updates; {@link #snapshot()} gives a
+ * frozen copy for consistent scoring.
+ */
+public class DocumentFrequencyIndex implements IDocumentFrequencies {
+    private final static int MAGIC = 0x53444649; // "SDFI"
+    private final static int VERSION = 1;
+
+    private final ConcurrentHashMap<String, LongAdder> frequencies;
+    private final LongAdder documents;
+
+    public DocumentFrequencyIndex() {
+        frequencies = new ConcurrentHashMap<>();
+        documents = new LongAdder();
+    }
+
+    /**
+     * Counts a document.
+     * @param uniqueTerms The distinct terms of the document.
+     */
+    public void addDocument(Collection<String> uniqueTerms) {
+        for (String term : uniqueTerms) {
+            frequencies.computeIfAbsent(term, key -> new LongAdder()).increment();
+        }
+        documents.increment();
+    }
+
+    @Override
+    public long documentFrequency(String term) {
+        LongAdder frequency = frequencies.get(term);
+        return frequency == null ? 0 : frequency.sum();
+    }
+
+    @Override
+    public long documents() {
+        return documents.sum();
+    }
+
+    public int size() {
+        return frequencies.size();
+    }
+
+    /**
+     * Creates a frozen copy of the index which isn't affected
+     * by documents added afterwards. The copy isn't atomic: if
+     * documents are added while it's taken, some of their terms
+     * could be counted without the documents themselves, so a
+     * document frequency could exceed the number of documents.
+     * {@link CorpusTfIdfScorer} clamps it.
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        Map<String, Long> copy = new HashMap<>(frequencies.size() * 2);
+        frequencies.forEach((term, frequency) -> copy.put(term, frequency.sum()));
+        return new Snapshot(copy, documents.sum());
+    }
+
+    /**
+     * Writes the index to a file so it doesn't need to be rebuilt.
+     * @param path The file to write.
+     * @throws IOException If writing fails.
+     */
+    public void save(Path path) throws IOException {
+        Snapshot snapshot = snapshot();
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(snapshot.documents);
+            output.writeInt(snapshot.frequencies.size());
+
+            for (Map.Entry<String, Long> entry : snapshot.frequencies.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeLong(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #save(Path)}. More documents
+     * could be added to it afterwards.
+     * @param path The file to read.
+     * @return The index.
+     * @throws IOException If reading fails or the file isn't an index.
+     */
+    public static DocumentFrequencyIndex load(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC)
+                throw new IOException("Not a document frequency index: " + path);
+
+            int version = input.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported document frequency index version: " + version);
+
+            DocumentFrequencyIndex index = new DocumentFrequencyIndex();
+            index.documents.add(input.readLong());
+
+            int terms = input.readInt();
+            for (int i = 0; i < terms; i++) {
+                LongAdder frequency = new LongAdder();
+                String term = input.readUTF();
+                frequency.add(input.readLong());
+                index.frequencies.put(term, frequency);
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * A frozen copy of a {@link DocumentFrequencyIndex}.
+     */
+    public static class Snapshot implements IDocumentFrequencies {
+        private final Map<String, Long> frequencies;
+        private final long documents;
+
+        Snapshot(Map<String, Long> frequencies, long documents) {
+            this.frequencies = frequencies;
+            this.documents = documents;
+        }
+
+        @Override
+        public long documentFrequency(String term) {
+            Long frequency = frequencies.get(term);
+            return frequency == null ? 0 : frequency;
+        }
+
+        @Override
+        public long documents() {
+            return documents;
+        }
+    }
+}
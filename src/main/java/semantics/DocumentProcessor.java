@@ -5,12 +5,25 @@ import edu.stanford.nlp.simple.Document;
 import edu.stanford.nlp.simple.Sentence;
 import edu.stanford.nlp.simple.Token;
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
-import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import semantics.embeddings.MappedEmbeddings;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class DocumentProcessor {
+    /**
+     * Documents with at least this many sentences have
+     * their sentences processed in parallel.
+     */
+    public static String PARALLEL_SENTENCES = "sentences.parallel";
+
     private static String sentenceRegex = "\\s*\\.\\s*"; // use with str.trim().split(sentenceRegex)
     /**
      * The default unit breaker which splits a document
@@ -56,35 +69,46 @@ public class DocumentProcessor {
                 tfIdfs.add(new TfIdfTerm(token.originalText(), 0));
             }
 
-            TfIdfTerm term = tfIdfs.get(index);
-
-            term.tf++; // update the term frequency
-            term.tfIdf = 1 + Math.log10(term.tf); // IDF is assumed to be 1, so only TF is considered
+            tfIdfs.get(index).tf++; // update the term frequency
         });
 
+        // IDF is assumed to be 1, so only TF is considered
+        tfIdfs.forEach(term -> term.tfIdf = 1 + Math.log10(term.tf));
+
         return tfIdfs;
     };
 
     private IDocumentBreaker unitTextBreaker;
     private Properties operations;
+    private AnnotationPlan annotationPlan;
 
     private ISentimentScorer sentimentScorer;
     private ITfIdfScorer tfIdfScorer;
-    private WordVectors word2vec;
-    private WordVectors gloVe;
+    private TermDictionary termDictionary;
+    private IWordEmbeddings word2vec;
+    private IWordEmbeddings gloVe;
+    private SifModel word2vecSif;
+    private SifModel gloVeSif;
 
     /* pre-processing and feature flags */
     private boolean lemmatize;
     private boolean depunctuate;
     private boolean resolveCorefs;
     private boolean normalizeTweets;
+    private boolean lazyPreprocess;
+    private LazyPreprocess tokenPipeline;
     private boolean checkQuotes, getNgrams, getPos,
             getSentiment, getEntities, getRelations,
             getUniqueWordsCount, getWordLength, getWordsPerSentenc,
-            getTfIdf, getWord2vec, getGlove;
+            getTfIdf, getWord2vec, getGlove,
+            getWord2vecTfIdf, getWord2vecSif, getGloveTfIdf, getGloveSif;
 
     /* more feature-related variables */
     private int ngrams;
+    private int parallelSentences = Integer.MAX_VALUE;
+
+    /* batch processing */
+    private final BatchExecutor batches = new BatchExecutor("document-processor");
 
     /**
      * A constructor which instantiates a class
@@ -117,10 +141,15 @@ public class DocumentProcessor {
             getNgrams = true;
         }
 
+        if (this.operations.containsKey(PARALLEL_SENTENCES)) {
+            parallelSentences = Integer.parseInt(this.operations.getProperty(PARALLEL_SENTENCES));
+        }
+
         lemmatize = this.operations.containsKey(Preprocess.LEMMATIZE);
         depunctuate = this.operations.containsKey(Preprocess.DEPUNCTUATE);
         resolveCorefs = this.operations.containsKey(Preprocess.COREFS);
         normalizeTweets = this.operations.containsKey(Preprocess.NORMALIZE_TWEETS);
+        lazyPreprocess = this.operations.containsKey(Preprocess.LAZY);
 
         getPos = this.operations.containsKey(FeatureTags.PARTS_OF_SPEECH);
         getSentiment = this.operations.containsKey(FeatureTags.SENTIMENT);
@@ -133,10 +162,46 @@ public class DocumentProcessor {
         getTfIdf = this.operations.containsKey(FeatureTags.TF_IDF);
         getWord2vec = this.operations.containsKey(FeatureTags.WORD2VEC);
         getGlove = this.operations.containsKey(FeatureTags.GLOVE);
+        getWord2vecTfIdf = this.operations.containsKey(FeatureTags.WORD2VEC_TF_IDF);
+        getWord2vecSif = this.operations.containsKey(FeatureTags.WORD2VEC_SIF);
+        getGloveTfIdf = this.operations.containsKey(FeatureTags.GLOVE_TF_IDF);
+        getGloveSif = this.operations.containsKey(FeatureTags.GLOVE_SIF);
+
+        annotationPlan = planAnnotations();
+        tokenPipeline = createTokenPipeline();
+    }
+
+    /**
+     * Derives the CoreNLP annotators needed by the requested
+     * pre-processing steps and features.
+     * @return The annotation plan of this processor.
+     */
+    private AnnotationPlan planAnnotations() {
+        AnnotationPlan plan = new AnnotationPlan();
+
+        if (lemmatize)
+            plan.lemmas();
+        if (resolveCorefs)
+            plan.corefs();
+        if (getPos)
+            plan.partsOfSpeech();
+        if (getEntities)
+            plan.entities();
+        if (getRelations)
+            plan.relations();
+        if (getSentiment && sentimentScorer == corenlpSentimentScorer)
+            plan.sentiment();
+
+        return plan;
+    }
+
+    public AnnotationPlan getAnnotationPlan() {
+        return annotationPlan;
     }
 
     public DocumentProcessor setSentimentScorer(ISentimentScorer scorer) {
         sentimentScorer = scorer;
+        annotationPlan = planAnnotations();
         return this;
     }
 
@@ -153,8 +218,36 @@ public class DocumentProcessor {
         return setTfIdfScorer(tfUnaryIdf);
     }
 
+    /**
+     * Scores TF like {@link #tfUnaryIdf} but with terms interned in
+     * a dictionary, which is also used to count unique words and to
+     * create n-grams.
+     * @param dictionary The dictionary, could be shared by processors.
+     * @return This processor.
+     */
+    public DocumentProcessor useDictionaryTfScorer(TermDictionary dictionary) {
+        termDictionary = dictionary;
+        return setTfIdfScorer(new DictionaryTfScorer(dictionary));
+    }
+
+    /**
+     * Scores TF-IDF with document frequencies from a corpus. Every
+     * processed document is added to the index.
+     * @param index The document frequency index, possibly loaded
+     *              with {@link DocumentFrequencyIndex#load(java.nio.file.Path)}.
+     * @return This processor.
+     */
+    public DocumentProcessor useCorpusTfIdfScorer(DocumentFrequencyIndex index) {
+        return setTfIdfScorer(new CorpusTfIdfScorer(index));
+    }
+
     public DocumentProcessor setWord2vec(IWordVectorLoader loader, String path) throws Exception {
-        word2vec = loader.loadModel(path);
+        word2vec = new WordVectorsEmbeddings(loader.loadModel(path));
+        return this;
+    }
+
+    public DocumentProcessor setWord2vec(IWordEmbeddings embeddings) {
+        word2vec = embeddings;
         return this;
     }
 
@@ -162,8 +255,24 @@ public class DocumentProcessor {
         return setWord2vec(defaultWord2vecLoader, path);
     }
 
+    /**
+     * Uses word2vec embeddings from a memory-mapped file instead of
+     * loading them onto the heap.
+     * @param path A file converted with {@link semantics.embeddings.EmbeddingsWriter}.
+     * @return This processor.
+     * @throws IOException If the file can't be mapped.
+     */
+    public DocumentProcessor useMappedWord2vec(String path) throws IOException {
+        return setWord2vec(MappedEmbeddings.open(Paths.get(path)));
+    }
+
     public DocumentProcessor setGloVe(IWordVectorLoader loader, String path) throws Exception {
-        gloVe = loader.loadModel(path);
+        gloVe = new WordVectorsEmbeddings(loader.loadModel(path));
+        return this;
+    }
+
+    public DocumentProcessor setGloVe(IWordEmbeddings embeddings) {
+        gloVe = embeddings;
         return this;
     }
 
@@ -171,6 +280,79 @@ public class DocumentProcessor {
         return setGloVe(defaultGloVeLoader, path);
     }
 
+    /**
+     * Same as {@link #useMappedWord2vec(String)} for GloVe embeddings.
+     */
+    public DocumentProcessor useMappedGloVe(String path) throws IOException {
+        return setGloVe(MappedEmbeddings.open(Paths.get(path)));
+    }
+
+    /**
+     * Sets the SIF model used for {@link FeatureTags#WORD2VEC_SIF}.
+     * The model is specific to the word2vec embeddings since its
+     * principal component is fitted on their vectors. It must be set
+     * if the feature is requested, otherwise processing a document
+     * throws an IllegalStateException.
+     * @param model The model, shared by all documents.
+     * @return This processor.
+     */
+    public DocumentProcessor setWord2vecSif(SifModel model) {
+        word2vecSif = model;
+        return this;
+    }
+
+    /**
+     * Same as {@link #setWord2vecSif(SifModel)} for {@link FeatureTags#GLOVE_SIF}.
+     */
+    public DocumentProcessor setGloVeSif(SifModel model) {
+        gloVeSif = model;
+        return this;
+    }
+
+    /**
+     * Sets the number of workers used by
+     * {@link #processDocuments(Iterable)}. Has no effect if an
+     * executor was given through {@link #setExecutor(ExecutorService)}.
+     * The first batch creates the workers, after which their number
+     * can't change.
+     * @param parallelism The number of worker threads.
+     * @return This processor.
+     */
+    public DocumentProcessor setParallelism(int parallelism) {
+        batches.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of documents being processed at the same
+     * time by {@link #processDocuments(Iterable)}. Reading the input
+     * is paused until the oldest document is done, which keeps memory
+     * flat regardless of the batch size. Twice the number of workers
+     * by default.
+     * @param maxInFlight The maximum number of documents in flight.
+     * @return This processor.
+     */
+    public DocumentProcessor setMaxInFlight(int maxInFlight) {
+        batches.setMaxInFlight(maxInFlight);
+        return this;
+    }
+
+    /**
+     * Uses an existing executor (e.g. a ForkJoinPool) for batches
+     * instead of creating one. The caller owns its life cycle.
+     * @param executor The executor to run documents on.
+     * @return This processor.
+     */
+    public DocumentProcessor setExecutor(ExecutorService executor) {
+        batches.setExecutor(executor);
+        return this;
+    }
+
+    public DocumentProcessor setBatchListener(IBatchListener listener) {
+        batches.setListener(listener);
+        return this;
+    }
+
     private DocumentFeatures initializeFeatures() {
         DocumentFeatures features = new DocumentFeatures();
         if (getNgrams) {
@@ -192,103 +374,352 @@ public class DocumentProcessor {
         return features;
     }
 
+    /**
+     * Applies the pre-processing steps to the tokens of an already
+     * annotated sentence one step at a time. The steps only change
+     * the text of the tokens, so the sentence is never parsed again.
+     * @param sentence The sentence to pre-process.
+     * @param docCorefs The co-reference chains of the document.
+     * @return The pre-processed sentence, or null if no token is left.
+     */
+    private PreprocessedSentence preprocess(Sentence sentence, Map<Integer, CorefChain> docCorefs) {
+        List<Token> preprocessed = sentence.tokens();
+
+        // lemmas are read from the original tokens so this goes first
+        if (lemmatize) {
+            preprocessed = Preprocess.lemmatize(preprocessed);
+        }
+
+        if (normalizeTweets) {
+            preprocessed = Preprocess.normalizeTweet(preprocessed);
+            if (preprocessed.isEmpty())
+                return null;
+        }
+
+        if (resolveCorefs && docCorefs != null) { // sometimes there are not co-refs to resolve
+            preprocessed = Preprocess.resolveTokens(sentence, preprocessed, docCorefs);
+        }
+
+        // this needs to be done before removing punctuations
+        int quotes = checkQuotes ?
+                SyntacticFeatures.countDoubleQuotes(preprocessed) :
+                0;
+
+        List<Token> tokens = depunctuate ?
+                Preprocess.removePunctuation(preprocessed) :
+                preprocessed;
+
+        return new PreprocessedSentence(sentence, preprocessed, tokens, quotes);
+    }
+
+    /**
+     * Creates the single-pass pre-processing engine used
+     * instead of {@link #preprocess(Sentence, Map)} when
+     * {@link Preprocess#LAZY} is set.
+     * @return The configured engine.
+     */
+    private LazyPreprocess createTokenPipeline() {
+        LazyPreprocess pipeline = new LazyPreprocess();
+
+        if (lemmatize)
+            pipeline.lemmatize();
+        if (normalizeTweets)
+            pipeline.normalizeTweets();
+        if (resolveCorefs)
+            pipeline.resolveCorefs();
+        if (depunctuate)
+            pipeline.removePunctuation();
+
+        return pipeline;
+    }
+
+    Sentiment scoreSentiment(Sentence sentence, List<Token> tokens) {
+        if (sentimentScorer == corenlpSentimentScorer) {
+            return Sentiment.fromSentimentClass(sentence.sentiment());
+        }
+
+        return sentimentScorer.score(Preprocess.joinCollection(tokens, Token::word));
+    }
+
     public DocumentFeatures processDocument(String text) {
+        return extractFeatures(annotate(splitDocument(text)));
+    }
+
+    /**
+     * The first stage of processing a document: creates it and
+     * splits it into units using the unit breaker.
+     * @param text The text of the document.
+     * @return The split document.
+     */
+    AnnotatedDocument splitDocument(String text) {
         Document document = new Document(text);
-        List<Sentence> sentences = unitTextBreaker.breakDocument(document);
-        List<Token> allTokens = new ArrayList<>();
-        Map<Integer, CorefChain> docCorefs = resolveCorefs ?
-                document.coref() :
-                null;
+        return new AnnotatedDocument(document, unitTextBreaker.breakDocument(document));
+    }
 
+    /**
+     * The second stage of processing a document: runs the
+     * annotators of the annotation plan.
+     * @param annotated A split document.
+     * @return The same document, annotated.
+     */
+    AnnotatedDocument annotate(AnnotatedDocument annotated) {
+        annotationPlan.annotate(annotated.document, annotated.sentences);
+        return annotated;
+    }
+
+    /**
+     * The last stage of processing a document: pre-processes
+     * the tokens and extracts the features.
+     * @param annotated An annotated document.
+     * @return The features of the document.
+     */
+    DocumentFeatures extractFeatures(AnnotatedDocument annotated) {
+        List<Sentence> sentences = annotated.sentences;
         DocumentFeatures features = initializeFeatures();
 
         features.numSentences = sentences.size();
 
-        // TODO: Pre-processing needs to be done lazily to improve performance
-        for (Sentence sentence : sentences) {
-            if (normalizeTweets) {
-                sentence = Preprocess.normalizeTweet(sentence);
-                if (sentence == null)
-                    continue;
-            }
+        // co-references are resolved for the whole document before sentences are split among threads
+        Map<Integer, CorefChain> docCorefs = documentCorefs(annotated);
 
-            if (lemmatize) {
-                sentence = Preprocess.lemmatize(sentence);
-            }
+        // the annotators already ran, so sentences could be handled in parallel safely since they're only read
+        Stream<Sentence> sentenceStream = sentences.size() >= parallelSentences ?
+                sentences.parallelStream() :
+                sentences.stream();
 
-            if (resolveCorefs && docCorefs != null) { // sometimes there are not co-refs to resolve
-                sentence = Preprocess.resolveSentence(sentence, docCorefs);
-            }
+        List<SentenceFeatures> partials = sentenceStream
+                .map(sentence -> preprocessSentence(sentence, docCorefs))
+                .filter(Objects::nonNull)
+                .map(this::extractSentenceFeatures)
+                .collect(Collectors.toList()); // keeps the order of the sentences
+
+        List<Token> allTokens = new ArrayList<>();
 
-            // this needs to be done before removing punctuations
+        for (SentenceFeatures partial : partials) {
             if (checkQuotes) {
-                int count = SyntacticFeatures.countDoubleQuotes(sentence.tokens());
-                features.containsQuotes = count > 0;
-                features.containsIncompleteQuotes = count % 2 != 0;
+                features.containsQuotes = partial.quotes > 0;
+                features.containsIncompleteQuotes = partial.quotes % 2 != 0;
             }
 
-            List<Token> tokens = depunctuate ?
-                    Preprocess.removePunctuation(sentence.tokens()) :
-                    sentence.tokens();
-
             if (getNgrams) {
-                features.ngrams.addAll(
-                        LexicalFeatures.ngrams(tokens, ngrams)
-                );
+                features.ngrams.addAll(partial.ngrams);
             }
 
             if (getPos) {
-                features.partsOfSpeech.addAll(
-                        SyntacticFeatures.partsOfSpeech(tokens)
-                );
+                features.partsOfSpeech.addAll(partial.partsOfSpeech);
             }
 
             if (getSentiment) {
-                features.sentiment = sentimentScorer.score(sentence.text());
+                features.sentiment = partial.sentiment;
             }
 
             if (getEntities) {
-                features.entities.addAll(
-                        SyntacticFeatures.entities(tokens)
-                );
+                features.entities.addAll(partial.entities);
             }
 
             if (getRelations) {
-                features.relations.addAll(
-                        SyntacticFeatures.relations(sentence, 0.5)
-                );
+                features.relations.addAll(partial.relations);
             }
 
-            allTokens.addAll(tokens);
+            allTokens.addAll(partial.tokens);
         }
 
         if (getUniqueWordsCount) {
-            features.uniqueWordsCount = LexicalFeatures.uniqueTerms(allTokens).size();
+            features.uniqueWordsCount = termDictionary != null ?
+                    LexicalFeatures.countUniqueTerms(allTokens, termDictionary) :
+                    LexicalFeatures.uniqueTerms(allTokens).size();
         }
 
-        if (getWordsPerSentenc) {
+        if (getWordsPerSentenc && !sentences.isEmpty()) {
             features.avgWordsPerSentence = (double) allTokens.size() / sentences.size();
         }
 
-        if (getWordLength) {
-            features.avgWordLength = allTokens.stream()
-                    .mapToInt(token -> token.word().length())
-                    .average()
-                    .getAsDouble();
+        if (getWordLength && !allTokens.isEmpty()) {
+            int characters = partials.stream()
+                    .mapToInt(partial -> partial.characters)
+                    .sum();
+            features.avgWordLength = (double) characters / allTokens.size();
         }
 
+        // scored once even if only the weighted embeddings need it (a corpus scorer counts every call)
+        Memoized<List<TfIdfTerm>> tfIdf = new Memoized<>(() -> tfIdfScorer.score(allTokens));
+
         if (getTfIdf) {
-            features.tfIdf = tfIdfScorer.score(allTokens);
+            features.tfIdf = tfIdf.get();
         }
 
-        if (getWord2vec) {
-            features.word2Vec = DocumentVectors.getMeanVectorsFromTokens(allTokens, word2vec);
+        if (getWord2vec || getWord2vecTfIdf || getWord2vecSif) {
+            DocumentEmbeddings embedded = word2vecEmbeddings(allTokens, tfIdf);
+            features.word2Vec = embedded.mean;
+            features.word2VecTfIdf = embedded.tfIdfMean;
+            features.word2VecSif = embedded.sif;
         }
 
-        if (getGlove) {
-            features.gloVe = DocumentVectors.getMeanVectorsFromTokens(allTokens, gloVe);
+        if (getGlove || getGloveTfIdf || getGloveSif) {
+            DocumentEmbeddings embedded = gloVeEmbeddings(allTokens, tfIdf);
+            features.gloVe = embedded.mean;
+            features.gloVeTfIdf = embedded.tfIdfMean;
+            features.gloVeSif = embedded.sif;
         }
 
         return features;
     }
+
+    /**
+     * Extracts the features which depend on a single sentence.
+     * @param preprocessed A pre-processed sentence.
+     * @return The features of the sentence.
+     */
+    private SentenceFeatures extractSentenceFeatures(PreprocessedSentence preprocessed) {
+        SentenceFeatures features = new SentenceFeatures();
+        Sentence sentence = preprocessed.sentence;
+        List<Token> tokens = preprocessed.tokens;
+
+        features.quotes = preprocessed.quotes;
+        features.tokens = tokens;
+
+        if (getNgrams) {
+            features.ngrams = ngrams(tokens);
+        }
+
+        if (getPos) {
+            features.partsOfSpeech = SyntacticFeatures.partsOfSpeech(tokens);
+        }
+
+        if (getSentiment) {
+            features.sentiment = scoreSentiment(sentence, preprocessed.preprocessed);
+        }
+
+        if (getEntities) {
+            features.entities = SyntacticFeatures.entities(tokens);
+        }
+
+        if (getRelations) {
+            features.relations = SyntacticFeatures.relations(sentence, 0.5);
+        }
+
+        if (getWordLength) {
+            for (Token token : tokens) {
+                features.characters += token.word().length();
+            }
+        }
+
+        return features;
+    }
+
+    private Map<Integer, CorefChain> documentCorefs(AnnotatedDocument annotated) {
+        return resolveCorefs ?
+                annotated.document.coref() :
+                null;
+    }
+
+    private PreprocessedSentence preprocessSentence(Sentence sentence, Map<Integer, CorefChain> docCorefs) {
+        return lazyPreprocess ?
+                tokenPipeline.preprocess(sentence, docCorefs) :
+                preprocess(sentence, docCorefs);
+    }
+
+    /**
+     * Pre-processes every sentence of a document. Sentences with
+     * nothing left after pre-processing are dropped.
+     * @param annotated The document (annotations are run on demand if
+     *                  it wasn't annotated already).
+     * @return The pre-processed sentences in order.
+     */
+    List<PreprocessedSentence> preprocessSentences(AnnotatedDocument annotated) {
+        Map<Integer, CorefChain> docCorefs = documentCorefs(annotated);
+        List<PreprocessedSentence> preprocessedSentences = new ArrayList<>(annotated.sentences.size());
+
+        for (Sentence sentence : annotated.sentences) {
+            PreprocessedSentence preprocessed = preprocessSentence(sentence, docCorefs);
+
+            if (preprocessed != null)
+                preprocessedSentences.add(preprocessed);
+        }
+
+        return preprocessedSentences;
+    }
+
+    static double avgWordLength(List<Token> tokens) {
+        return tokens.stream()
+                .mapToInt(token -> token.word().length())
+                .average()
+                .getAsDouble();
+    }
+
+    /* used by LazyDocumentFeatures to compute features on demand */
+
+    boolean isRequested(String feature) {
+        return operations.containsKey(feature);
+    }
+
+    List<String> ngrams(List<Token> tokens) {
+        return termDictionary != null ?
+                LexicalFeatures.ngrams(tokens, ngrams, termDictionary) :
+                LexicalFeatures.ngrams(tokens, ngrams);
+    }
+
+    List<TfIdfTerm> tfIdf(List<Token> allTokens) {
+        return tfIdfScorer.score(allTokens);
+    }
+
+    DocumentEmbeddings word2vecEmbeddings(List<Token> allTokens, Supplier<List<TfIdfTerm>> tfIdf) {
+        if (getWord2vecSif && word2vecSif == null)
+            throw new IllegalStateException(FeatureTags.WORD2VEC_SIF + " is requested but no SIF model is set");
+
+        return DocumentVectors.embedTokens(allTokens, word2vec, getWord2vec,
+                getWord2vecTfIdf ? tfIdfWeights(tfIdf.get()) : null,
+                getWord2vecSif ? word2vecSif : null);
+    }
+
+    DocumentEmbeddings gloVeEmbeddings(List<Token> allTokens, Supplier<List<TfIdfTerm>> tfIdf) {
+        if (getGloveSif && gloVeSif == null)
+            throw new IllegalStateException(FeatureTags.GLOVE_SIF + " is requested but no SIF model is set");
+
+        return DocumentVectors.embedTokens(allTokens, gloVe, getGlove,
+                getGloveTfIdf ? tfIdfWeights(tfIdf.get()) : null,
+                getGloveSif ? gloVeSif : null);
+    }
+
+    private static Map<String, Double> tfIdfWeights(List<TfIdfTerm> terms) {
+        Map<String, Double> weights = new HashMap<>(terms.size() * 2);
+        terms.forEach(term -> weights.put(term.term, term.tfIdf));
+        return weights;
+    }
+
+    /**
+     * Creates the features of a document without computing any of
+     * them. Each feature, and the annotations it needs, is computed
+     * the first time it's read, so features nobody reads cost nothing.
+     * @param text The text of the document.
+     * @return The lazily computed features of the document.
+     */
+    public LazyDocumentFeatures processDocumentLazily(String text) {
+        return new LazyDocumentFeatures(this, splitDocument(text));
+    }
+
+    /**
+     * Processes a batch of documents in parallel. The results are in
+     * the same order as the input. The loaded embeddings and scorers
+     * are shared by all workers.
+     * @param texts The documents to process.
+     * @return The features of every document in input order.
+     */
+    public List<DocumentFeatures> processDocuments(Iterable<String> texts) {
+        List<DocumentFeatures> results = new ArrayList<>();
+        processDocuments(texts, results::add);
+        return results;
+    }
+
+    /**
+     * Processes a batch of documents in parallel and hands each result,
+     * in input order, to a consumer as soon as it and all the ones
+     * before it are done. Only a bounded number of documents are in
+     * flight at any time (see {@link #setMaxInFlight(int)}).
+     * @param texts The documents to process.
+     * @param consumer Receives the features of every document in input order.
+     */
+    public void processDocuments(Iterable<String> texts, Consumer<DocumentFeatures> consumer) {
+        batches.run(texts, this::processDocument, consumer);
+    }
 }
\ No newline at end of file
@@ -4,13 +4,142 @@ import edu.stanford.nlp.simple.Token;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.cpu.nativecpu.NDArray;
+import semantics.embeddings.IPoolingKernel;
+import semantics.embeddings.PoolingKernels;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 public class DocumentVectors {
+    /**
+     * Averages the vectors of the tokens found in a DL4J model. The rows
+     * are added natively into one array instead of first being gathered
+     * into a list of words and a matrix.
+     * @return The mean vector, all zeros if no token was found.
+     */
     public static double[] getMeanVectorsFromTokens(List<Token> tokens, WordVectors embeddings) {
-        return getMeanVectors(tokens.stream().map(Token::word).collect(Collectors.toList()), embeddings);
+        INDArray sum = null;
+        int found = 0;
+
+        for (Token token : tokens) {
+            String word = token.word();
+            if (!embeddings.hasWord(word))
+                continue;
+
+            INDArray row = embeddings.getWordVectorMatrix(word);
+            sum = sum == null ? row.dup() : sum.addi(row);
+            found++;
+        }
+
+        if (sum == null)
+            return new double[embeddings.lookupTable().layerSize()];
+
+        sum.divi(found);
+
+        double[] mean = new double[(int) sum.length()];
+        for (int i = 0; i < mean.length; i++) {
+            mean[i] = sum.getDouble(i);
+        }
+        return mean;
+    }
+
+    /**
+     * Averages the vectors of the tokens found in an embeddings table
+     * by adding them into a single array.
+     * @return The mean vector, all zeros if no token was found.
+     */
+    public static double[] getMeanVectorsFromTokens(List<Token> tokens, IWordEmbeddings embeddings) {
+        double[] mean = new double[embeddings.dimension()];
+        int found = 0;
+
+        for (Token token : tokens) {
+            if (embeddings.addTo(token.word(), 1.0, mean))
+                found++;
+        }
+
+        return divide(mean, found);
+    }
+
+    /**
+     * Computes the plain, TF-IDF-weighted, and SIF vectors of a document
+     * while looking up the vector of every token only once.
+     * @param tokens The tokens of the document.
+     * @param embeddings The embeddings to look up.
+     * @param mean Whether to compute the plain mean.
+     * @param tfIdf The TF-IDF weight of every term of the document, or
+     *              null to skip the weighted mean. Terms are matched to
+     *              the original text of tokens like the TF-IDF scorers do,
+     *              and since the weights already include the frequency of
+     *              the terms, every term is added once however often it occurs.
+     * @param sif The SIF model, or null to skip SIF.
+     * @return The requested vectors; all zeros if no token was found.
+     */
+    public static DocumentEmbeddings embedTokens(List<Token> tokens, IWordEmbeddings embeddings,
+                                                 boolean mean, Map<String, Double> tfIdf, SifModel sif)
+    {
+        DocumentEmbeddings embedded = new DocumentEmbeddings();
+        int dimension = embeddings.dimension();
+
+        if (tfIdf == null && sif == null) {
+            embedded.mean = mean ? getMeanVectorsFromTokens(tokens, embeddings) : null;
+            return embedded;
+        }
+
+        IPoolingKernel kernel = PoolingKernels.get();
+        double[] vector = new double[dimension];
+        double[] sum = mean ? new double[dimension] : null;
+        double[] tfIdfSum = tfIdf != null ? new double[dimension] : null;
+        double[] sifSum = sif != null ? new double[dimension] : null;
+        Set<String> weighted = tfIdf != null ? new HashSet<>() : null;
+        double tfIdfWeights = 0;
+        int found = 0;
+
+        for (Token token : tokens) {
+            Arrays.fill(vector, 0);
+            if (!embeddings.addTo(token.word(), 1.0, vector))
+                continue;
+
+            found++;
+
+            if (sum != null) {
+                kernel.addScaled(sum, vector, 1.0);
+            }
+
+            if (tfIdfSum != null) {
+                String term = token.originalText();
+                Double weight = tfIdf.get(term);
+                if (weight != null && weighted.add(term)) {
+                    kernel.addScaled(tfIdfSum, vector, weight);
+                    tfIdfWeights += weight;
+                }
+            }
+
+            if (sifSum != null) {
+                kernel.addScaled(sifSum, vector, sif.weight(token.word()));
+            }
+        }
+
+        if (sum != null) {
+            embedded.mean = divide(sum, found);
+        }
+
+        if (tfIdfSum != null) {
+            if (tfIdfWeights != 0)
+                kernel.scale(tfIdfSum, 1 / tfIdfWeights);
+            embedded.tfIdfMean = tfIdfSum;
+        }
+
+        if (sifSum != null) {
+            // SIF averages the weighted vectors over the number of words
+            divide(sifSum, found);
+            sif.removeComponent(sifSum);
+            embedded.sif = sifSum;
+        }
+
+        return embedded;
     }
 
     public static double[] getMeanVectors(List<String> words, WordVectors embeddings) {
@@ -19,31 +148,38 @@ public class DocumentVectors {
 
     public static double[] meanVector(INDArray matrix) {
         double[] mean = new double[matrix.columns()];
-        int n = 0;
+        int rows = matrix.rows();
 
-        for (int vector = 0; vector < matrix.rows(); vector++) {
-            for (int dimension = 0; dimension < matrix.columns(); dimension++) {
-                mean[dimension] = (matrix.getDouble(vector, dimension) + n * mean[dimension]) / (n + 1);
+        for (int vector = 0; vector < rows; vector++) {
+            for (int dimension = 0; dimension < mean.length; dimension++) {
+                mean[dimension] += matrix.getDouble(vector, dimension);
             }
-            n++;
         }
 
-        return mean;
+        return divide(mean, rows);
     }
 
     public static double[] meanVector(List<INDArray> vectors) {
         int dimension = vectors.get(0).columns();
         double[] mean = new double[dimension];
-        int n = 0;
 
         for (INDArray vector : vectors) {
             for (int j = 0; j < dimension; j++) {
-                mean[j] = (vector.getDouble(0, j) + (n * mean[j])) / (n + 1);
+                mean[j] += vector.getDouble(0, j);
             }
-            n++;
         }
 
-        return mean;
+        return divide(mean, vectors.size());
+    }
+
+    private static double[] divide(double[] sum, int n) {
+        if (n > 1) {
+            double scale = 1.0 / n;
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] *= scale;
+            }
+        }
+        return sum;
     }
 
     public static INDArray vectorToNDArray(double[] vector) {
@@ -33,6 +33,25 @@ public class ExtractionProcess {
         return this;
     }
 
+    /**
+     * Applies all pre-processing steps in a single pass over the
+     * tokens (see {@link LazyPreprocess}) instead of one step at a time.
+     */
+    public ExtractionProcess lazyPreprocess() {
+        operations.setProperty(Preprocess.LAZY, "");
+        return this;
+    }
+
+    /**
+     * Processes the sentences of long documents in parallel.
+     * @param minSentences The minimum number of sentences for a
+     *                     document to be processed in parallel.
+     */
+    public ExtractionProcess parallelSentences(int minSentences) {
+        operations.setProperty(DocumentProcessor.PARALLEL_SENTENCES, String.valueOf(minSentences));
+        return this;
+    }
+
     public ExtractionProcess ngrams(int n) {
         operations.setProperty(FeatureTags.NGRAMS, String.valueOf(n));
         return this;
@@ -92,4 +111,32 @@ public class ExtractionProcess {
         operations.setProperty(FeatureTags.GLOVE, "");
         return this;
     }
-} 
+
+    /**
+     * The mean of the word2vec vectors weighted by the
+     * TF-IDF of their terms.
+     */
+    public ExtractionProcess word2vecTfIdf() {
+        operations.setProperty(FeatureTags.WORD2VEC_TF_IDF, "");
+        return this;
+    }
+
+    /**
+     * Smooth inverse frequency word2vec embeddings, which need a
+     * model set through {@link DocumentProcessor#setWord2vecSif(SifModel)}.
+     */
+    public ExtractionProcess word2vecSif() {
+        operations.setProperty(FeatureTags.WORD2VEC_SIF, "");
+        return this;
+    }
+
+    public ExtractionProcess gloVeTfIdf() {
+        operations.setProperty(FeatureTags.GLOVE_TF_IDF, "");
+        return this;
+    }
+
+    public ExtractionProcess gloVeSif() {
+        operations.setProperty(FeatureTags.GLOVE_SIF, "");
+        return this;
+    }
+}
\ No newline at end of file
@@ -15,4 +15,8 @@ public class FeatureTags {
     public static String TF_IDF = "vec.tf_idf";
     public static String WORD2VEC = "vec.word2vec";
     public static String GLOVE = "vec.glove";
+    public static String WORD2VEC_TF_IDF = "vec.word2vec.tf_idf";
+    public static String WORD2VEC_SIF = "vec.word2vec.sif";
+    public static String GLOVE_TF_IDF = "vec.glove.tf_idf";
+    public static String GLOVE_SIF = "vec.glove.sif";
 } 
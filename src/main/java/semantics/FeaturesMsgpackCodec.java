@@ -0,0 +1,385 @@
+package semantics;
+
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessageFormat;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.ValueType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes {@link DocumentFeatures} to MsgPack without reflection.
+ * Features are written as a map keyed by the same names Jackson uses,
+ * skipping null and empty values like {@link DocumentFeatures#toMsgpackBytes()},
+ * except that embeddings are written as binaries of big-endian doubles
+ * instead of arrays of doubles, which is smaller and much faster to
+ * read. The decoder also reads embeddings written as arrays, so it
+ * reads the output of {@link DocumentFeatures#toMsgpackBytes()} too.
+ *
+ * Every thread reuses its own packer and vector buffer, so encoding
+ * only allocates the returned bytes.
+ */
+public class FeaturesMsgpackCodec {
+    private final static ThreadLocal<MessageBufferPacker> packers =
+            ThreadLocal.withInitial(MessagePack::newDefaultBufferPacker);
+    private final static ThreadLocal<ByteBuffer> vectorBuffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(512 * Double.BYTES));
+
+    private FeaturesMsgpackCodec() {
+    }
+
+    public static byte[] encode(DocumentFeatures features) {
+        MessageBufferPacker packer = packers.get();
+        packer.clear();
+
+        try {
+            encode(features, packer);
+            return packer.toByteArray();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    public static DocumentFeatures decode(byte[] buffer) {
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(buffer)) {
+            return decode(unpacker);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /* ==== encoding ==== */
+
+    /**
+     * Writes the features as a single MsgPack map.
+     * @param features The features to write.
+     * @param packer The packer to write to.
+     * @throws IOException If the packer can't be written.
+     */
+    public static void encode(DocumentFeatures features, MessagePacker packer) throws IOException {
+        int fields = count(features.ngrams) + count(features.partsOfSpeech) + count(features.sentiment) +
+                count(features.entities) + count(features.relations) + count(features.avgWordLength) +
+                count(features.avgWordsPerSentence) + count(features.numSentences) +
+                count(features.uniqueWordsCount) + count(features.containsQuotes) +
+                count(features.containsIncompleteQuotes) + count(features.tfIdf) +
+                count(features.word2Vec) + count(features.gloVe) + count(features.word2VecTfIdf) +
+                count(features.word2VecSif) + count(features.gloVeTfIdf) + count(features.gloVeSif);
+
+        packer.packMapHeader(fields);
+
+        packStrings(packer, "ngrams", features.ngrams);
+        packStrings(packer, "partsOfSpeech", features.partsOfSpeech);
+
+        if (features.sentiment != null)
+            packer.packString("sentiment").packString(features.sentiment.name());
+
+        if (count(features.entities) > 0) {
+            packer.packString("entities").packArrayHeader(features.entities.size());
+            for (NamedEntity entity : features.entities) {
+                packer.packMapHeader(2);
+                packer.packString("name");
+                packNullable(packer, entity.name);
+                packer.packString("type");
+                packNullable(packer, entity.type);
+            }
+        }
+
+        if (count(features.relations) > 0) {
+            packer.packString("relations").packArrayHeader(features.relations.size());
+            for (SpoTuple relation : features.relations) {
+                packer.packMapHeader(3);
+                packer.packString("subject");
+                packNullable(packer, relation.subject);
+                packer.packString("predicate");
+                packNullable(packer, relation.predicate);
+                packer.packString("object");
+                packNullable(packer, relation.object);
+            }
+        }
+
+        if (features.avgWordLength != null)
+            packer.packString("avgWordLength").packDouble(features.avgWordLength);
+        if (features.avgWordsPerSentence != null)
+            packer.packString("avgWordsPerSentence").packDouble(features.avgWordsPerSentence);
+        if (features.numSentences != null)
+            packer.packString("numSentences").packInt(features.numSentences);
+        if (features.uniqueWordsCount != null)
+            packer.packString("uniqueWordsCount").packInt(features.uniqueWordsCount);
+        if (features.containsQuotes != null)
+            packer.packString("containsQuotes").packBoolean(features.containsQuotes);
+        if (features.containsIncompleteQuotes != null)
+            packer.packString("containsIncompleteQuotes").packBoolean(features.containsIncompleteQuotes);
+
+        if (count(features.tfIdf) > 0) {
+            packer.packString("tfIdf").packArrayHeader(features.tfIdf.size());
+            for (TfIdfTerm term : features.tfIdf) {
+                packer.packMapHeader(4);
+                packer.packString("term");
+                packNullable(packer, term.term);
+                packer.packString("tfIdf").packDouble(term.tfIdf);
+                packer.packString("tf").packDouble(term.tf);
+                packer.packString("idf").packDouble(term.idf);
+            }
+        }
+
+        packVector(packer, "word2Vec", features.word2Vec);
+        packVector(packer, "gloVe", features.gloVe);
+        packVector(packer, "word2VecTfIdf", features.word2VecTfIdf);
+        packVector(packer, "word2VecSif", features.word2VecSif);
+        packVector(packer, "gloVeTfIdf", features.gloVeTfIdf);
+        packVector(packer, "gloVeSif", features.gloVeSif);
+    }
+
+    private static int count(Object value) {
+        return value != null ? 1 : 0;
+    }
+
+    private static int count(List<?> values) {
+        return values != null && !values.isEmpty() ? 1 : 0;
+    }
+
+    private static int count(double[] vector) {
+        return vector != null && vector.length > 0 ? 1 : 0;
+    }
+
+    private static void packNullable(MessagePacker packer, String value) throws IOException {
+        if (value == null)
+            packer.packNil();
+        else
+            packer.packString(value);
+    }
+
+    private static void packStrings(MessagePacker packer, String key, List<String> values) throws IOException {
+        if (count(values) == 0)
+            return;
+
+        packer.packString(key).packArrayHeader(values.size());
+        for (String value : values) {
+            packNullable(packer, value);
+        }
+    }
+
+    private static void packVector(MessagePacker packer, String key, double[] vector) throws IOException {
+        if (count(vector) == 0)
+            return;
+
+        int length = vector.length * Double.BYTES;
+        ByteBuffer buffer = vectorBuffers.get();
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(length);
+            vectorBuffers.set(buffer);
+        }
+
+        buffer.clear();
+        buffer.asDoubleBuffer().put(vector);
+
+        packer.packString(key).packBinaryHeader(length);
+        packer.writePayload(buffer.array(), 0, length); // copied by the packer, so the buffer is reused
+    }
+
+    /* ==== decoding ==== */
+
+    /**
+     * Reads features written as a single MsgPack map. Unknown keys are skipped.
+     * @param unpacker The unpacker to read from.
+     * @return The features.
+     * @throws IOException If the unpacker can't be read or has a different format.
+     */
+    public static DocumentFeatures decode(MessageUnpacker unpacker) throws IOException {
+        DocumentFeatures features = new DocumentFeatures();
+        int fields = unpacker.unpackMapHeader();
+
+        for (int field = 0; field < fields; field++) {
+            String key = unpacker.unpackString();
+
+            if (unpacker.getNextFormat() == MessageFormat.NIL) {
+                unpacker.unpackNil();
+                continue;
+            }
+
+            switch (key) {
+                case "ngrams":
+                    features.ngrams = unpackStrings(unpacker);
+                    break;
+                case "partsOfSpeech":
+                    features.partsOfSpeech = unpackStrings(unpacker);
+                    break;
+                case "sentiment":
+                    features.sentiment = Sentiment.valueOf(unpacker.unpackString());
+                    break;
+                case "entities":
+                    features.entities = unpackEntities(unpacker);
+                    break;
+                case "relations":
+                    features.relations = unpackRelations(unpacker);
+                    break;
+                case "avgWordLength":
+                    features.avgWordLength = unpacker.unpackDouble();
+                    break;
+                case "avgWordsPerSentence":
+                    features.avgWordsPerSentence = unpacker.unpackDouble();
+                    break;
+                case "numSentences":
+                    features.numSentences = unpacker.unpackInt();
+                    break;
+                case "uniqueWordsCount":
+                    features.uniqueWordsCount = unpacker.unpackInt();
+                    break;
+                case "containsQuotes":
+                    features.containsQuotes = unpacker.unpackBoolean();
+                    break;
+                case "containsIncompleteQuotes":
+                    features.containsIncompleteQuotes = unpacker.unpackBoolean();
+                    break;
+                case "tfIdf":
+                    features.tfIdf = unpackTerms(unpacker);
+                    break;
+                case "word2Vec":
+                    features.word2Vec = unpackVector(unpacker);
+                    break;
+                case "gloVe":
+                    features.gloVe = unpackVector(unpacker);
+                    break;
+                case "word2VecTfIdf":
+                    features.word2VecTfIdf = unpackVector(unpacker);
+                    break;
+                case "word2VecSif":
+                    features.word2VecSif = unpackVector(unpacker);
+                    break;
+                case "gloVeTfIdf":
+                    features.gloVeTfIdf = unpackVector(unpacker);
+                    break;
+                case "gloVeSif":
+                    features.gloVeSif = unpackVector(unpacker);
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+
+        return features;
+    }
+
+    private static String unpackNullable(MessageUnpacker unpacker) throws IOException {
+        if (unpacker.getNextFormat() == MessageFormat.NIL) {
+            unpacker.unpackNil();
+            return null;
+        }
+        return unpacker.unpackString();
+    }
+
+    private static List<String> unpackStrings(MessageUnpacker unpacker) throws IOException {
+        int size = unpacker.unpackArrayHeader();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(unpackNullable(unpacker));
+        }
+        return values;
+    }
+
+    private static List<NamedEntity> unpackEntities(MessageUnpacker unpacker) throws IOException {
+        int size = unpacker.unpackArrayHeader();
+        List<NamedEntity> entities = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            NamedEntity entity = new NamedEntity();
+            int fields = unpacker.unpackMapHeader();
+
+            for (int field = 0; field < fields; field++) {
+                String key = unpacker.unpackString();
+                if (key.equals("name"))
+                    entity.name = unpackNullable(unpacker);
+                else if (key.equals("type"))
+                    entity.type = unpackNullable(unpacker);
+                else
+                    unpacker.skipValue();
+            }
+
+            entities.add(entity);
+        }
+
+        return entities;
+    }
+
+    private static List<SpoTuple> unpackRelations(MessageUnpacker unpacker) throws IOException {
+        int size = unpacker.unpackArrayHeader();
+        List<SpoTuple> relations = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            SpoTuple relation = new SpoTuple();
+            int fields = unpacker.unpackMapHeader();
+
+            for (int field = 0; field < fields; field++) {
+                String key = unpacker.unpackString();
+                if (key.equals("subject"))
+                    relation.subject = unpackNullable(unpacker);
+                else if (key.equals("predicate"))
+                    relation.predicate = unpackNullable(unpacker);
+                else if (key.equals("object"))
+                    relation.object = unpackNullable(unpacker);
+                else
+                    unpacker.skipValue();
+            }
+
+            relations.add(relation);
+        }
+
+        return relations;
+    }
+
+    private static List<TfIdfTerm> unpackTerms(MessageUnpacker unpacker) throws IOException {
+        int size = unpacker.unpackArrayHeader();
+        List<TfIdfTerm> terms = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            TfIdfTerm term = new TfIdfTerm();
+            int fields = unpacker.unpackMapHeader();
+
+            for (int field = 0; field < fields; field++) {
+                switch (unpacker.unpackString()) {
+                    case "term":
+                        term.term = unpackNullable(unpacker);
+                        break;
+                    case "tfIdf":
+                        term.tfIdf = unpacker.unpackDouble();
+                        break;
+                    case "tf":
+                        term.tf = unpacker.unpackDouble();
+                        break;
+                    case "idf":
+                        term.idf = unpacker.unpackDouble();
+                        break;
+                    default:
+                        unpacker.skipValue();
+                }
+            }
+
+            terms.add(term);
+        }
+
+        return terms;
+    }
+
+    private static double[] unpackVector(MessageUnpacker unpacker) throws IOException {
+        if (unpacker.getNextFormat().getValueType() == ValueType.ARRAY) {
+            // written by Jackson
+            double[] vector = new double[unpacker.unpackArrayHeader()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = unpacker.unpackDouble();
+            }
+            return vector;
+        }
+
+        byte[] bytes = unpacker.readPayload(unpacker.unpackBinaryHeader());
+        double[] vector = new double[bytes.length / Double.BYTES];
+        ByteBuffer.wrap(bytes).asDoubleBuffer().get(vector);
+        return vector;
+    }
+}
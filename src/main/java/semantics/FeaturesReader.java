@@ -0,0 +1,146 @@
+package semantics;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the features of documents written by {@link FeaturesWriter}
+ * one by one, so a stream is never read as a whole. Errors while
+ * reading are thrown as {@link UncheckedIOException}s since an
+ * iterator can't throw checked exceptions.
+ */
+public abstract class FeaturesReader implements Iterator<DocumentFeatures>, Closeable {
+    /**
+     * The largest MsgPack record accepted, so a corrupt length
+     * prefix doesn't allocate a huge buffer.
+     */
+    public final static int MAX_RECORD_LENGTH = 64 << 20;
+
+    protected final InputStream input;
+
+    private FeaturesReader(InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * @param input A stream of JSON lines; closed when the reader is closed.
+     * @return The reader.
+     * @throws IOException If the stream can't be read.
+     */
+    public static FeaturesReader jsonLines(InputStream input) throws IOException {
+        return new JsonLines(input);
+    }
+
+    public static FeaturesReader jsonLines(ReadableByteChannel channel) throws IOException {
+        return jsonLines(Channels.newInputStream(channel));
+    }
+
+    /**
+     * @param input A stream of length-delimited MsgPack maps; closed
+     *              when the reader is closed.
+     * @return The reader.
+     */
+    public static FeaturesReader msgpack(InputStream input) {
+        return new LengthDelimitedMsgpack(new BufferedInputStream(input, 1 << 16));
+    }
+
+    public static FeaturesReader msgpack(ReadableByteChannel channel) {
+        return msgpack(Channels.newInputStream(channel));
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private static class JsonLines extends FeaturesReader {
+        private final MappingIterator<DocumentFeatures> iterator;
+
+        JsonLines(InputStream input) throws IOException {
+            super(input);
+            iterator = DocumentFeatures.jsonReader.readValues(input);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return iterator.hasNextValue();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public DocumentFeatures next() {
+            try {
+                if (!iterator.hasNextValue())
+                    throw new NoSuchElementException();
+                return iterator.nextValue();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+            super.close();
+        }
+    }
+
+    private static class LengthDelimitedMsgpack extends FeaturesReader {
+        private final DataInputStream data;
+        private byte[] buffer = new byte[1024];
+        private int nextLength = -1;
+
+        LengthDelimitedMsgpack(InputStream input) {
+            super(input);
+            data = new DataInputStream(input);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextLength >= 0)
+                return true;
+
+            try {
+                int first = data.read();
+                if (first < 0)
+                    return false;
+
+                int length = (first << 24) | (data.readUnsignedByte() << 16) |
+                        (data.readUnsignedByte() << 8) | data.readUnsignedByte();
+                if (length < 0 || length > MAX_RECORD_LENGTH)
+                    throw new IOException("Invalid record length " + length + ", the stream is corrupt");
+
+                nextLength = length;
+                return true;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public DocumentFeatures next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            try {
+                if (buffer.length < nextLength)
+                    buffer = new byte[Math.max(nextLength, buffer.length * 2)];
+
+                data.readFully(buffer, 0, nextLength);
+                DocumentFeatures features = DocumentFeatures.msgpackReader.readValue(buffer, 0, nextLength);
+                nextLength = -1;
+                return features;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package semantics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the features of documents one by one to a stream, so that
+ * any number of documents can be written with constant memory
+ * (unlike {@link DocumentFeatures#createJsonArray(Iterable)}).
+ * Written streams are read back by {@link FeaturesReader}.
+ * Not thread-safe.
+ */
+public abstract class FeaturesWriter implements Closeable, Flushable {
+    protected final OutputStream output;
+
+    private FeaturesWriter(OutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Writes JSON lines: the JSON object of every document on its own line.
+     * @param output The stream to write to; closed when the writer is closed.
+     * @return The writer.
+     * @throws IOException If the stream can't be written.
+     */
+    public static FeaturesWriter jsonLines(OutputStream output) throws IOException {
+        return new JsonLines(new BufferedOutputStream(output, 1 << 16));
+    }
+
+    public static FeaturesWriter jsonLines(WritableByteChannel channel) throws IOException {
+        return jsonLines(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Writes every document as a MsgPack map preceded by its
+     * length as a 4-byte big-endian integer.
+     * @param output The stream to write to; closed when the writer is closed.
+     * @return The writer.
+     */
+    public static FeaturesWriter msgpack(OutputStream output) {
+        return new LengthDelimitedMsgpack(new BufferedOutputStream(output, 1 << 16));
+    }
+
+    public static FeaturesWriter msgpack(WritableByteChannel channel) {
+        return msgpack(Channels.newOutputStream(channel));
+    }
+
+    public abstract void write(DocumentFeatures features) throws IOException;
+
+    public void writeAll(Iterable<DocumentFeatures> documents) throws IOException {
+        for (DocumentFeatures features : documents) {
+            write(features);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    private static class JsonLines extends FeaturesWriter {
+        private final ObjectWriter writer = DocumentFeatures.jsonWriter
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private final JsonGenerator generator;
+
+        JsonLines(OutputStream output) throws IOException {
+            super(output);
+            generator = DocumentFeatures.jsonMapper.getFactory().createGenerator(output);
+            generator.setRootValueSeparator(null); // lines are separated explicitly
+        }
+
+        @Override
+        public void write(DocumentFeatures features) throws IOException {
+            writer.writeValue(generator, features);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close(); // also closes the stream
+        }
+    }
+
+    private static class LengthDelimitedMsgpack extends FeaturesWriter {
+        private final ObjectWriter writer = DocumentFeatures.msgpackWriter;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        private final DataOutputStream data;
+
+        LengthDelimitedMsgpack(OutputStream output) {
+            super(output);
+            data = new DataOutputStream(output);
+        }
+
+        @Override
+        public void write(DocumentFeatures features) throws IOException {
+            buffer.reset(); // reused by every document
+            writer.writeValue(buffer, features);
+
+            data.writeInt(buffer.size());
+            buffer.writeTo(data);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package semantics;
+
+@FunctionalInterface
+public interface IBatchListener {
+    void batchProcessed(BatchReport report);
+}
@@ -0,0 +1,14 @@
+package semantics;
+
+public interface IDocumentFrequencies {
+    /**
+     * @param term A term.
+     * @return The number of documents which contain the term.
+     */
+    long documentFrequency(String term);
+
+    /**
+     * @return The number of documents in the collection.
+     */
+    long documents();
+}
@@ -0,0 +1,44 @@
+package semantics;
+
+/**
+ * A read-only table of word embeddings. Unlike DL4J's WordVectors,
+ * vectors are added straight into a caller's array so that looking
+ * up a word doesn't need to allocate anything.
+ */
+public interface IWordEmbeddings {
+    /**
+     * @return The number of words in the table.
+     */
+    int size();
+
+    /**
+     * @return The number of dimensions of every vector.
+     */
+    int dimension();
+
+    /**
+     * @return All the words in the table, in no particular order.
+     */
+    Iterable<String> words();
+
+    boolean contains(String word);
+
+    /**
+     * Adds the vector of a word, multiplied by a weight, to an accumulator.
+     * @param word The word to look up.
+     * @param weight The weight of the vector.
+     * @param accumulator An array of {@link #dimension()} elements.
+     * @return False if the word isn't in the table, in which case
+     * the accumulator isn't changed.
+     */
+    boolean addTo(String word, double weight, double[] accumulator);
+
+    /**
+     * @param word The word to look up.
+     * @return A copy of the vector of the word, or null if it isn't in the table.
+     */
+    default double[] vector(String word) {
+        double[] vector = new double[dimension()];
+        return addTo(word, 1.0, vector) ? vector : null;
+    }
+}
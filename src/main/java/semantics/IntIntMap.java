@@ -0,0 +1,100 @@
+package semantics;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing map from non-negative int keys to int
+ * values, which avoids boxing. Not thread-safe; meant to be
+ * used (and cleared and reused) by a single thread.
+ */
+public class IntIntMap {
+    private final static int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntMap(int expectedKeys) {
+        int capacity = 16;
+        while (capacity < expectedKeys * 2)
+            capacity <<= 1;
+
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9; // spreads dense ids over the table
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    public int get(int key, int defaultValue) {
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slot(key)] == key;
+    }
+
+    public void put(int key, int value) {
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Adds to the value of a key, starting from 0 for new keys.
+     * @return The new value.
+     */
+    public int increment(int key, int amount) {
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            put(key, amount);
+            return amount;
+        }
+        return values[slot] += amount;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+}
@@ -0,0 +1,205 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The features of a document computed on demand. Nothing is
+ * computed until a getter is called; then only that feature, and
+ * the annotations it needs, are computed and kept for later calls.
+ * For example, relations (which need OpenIE) cost nothing unless
+ * {@link #getRelations()} is called.
+ *
+ * Getters of features which weren't requested return null,
+ * just like the fields of {@link DocumentFeatures}.
+ */
+public class LazyDocumentFeatures {
+    private final DocumentProcessor processor;
+    private final AnnotatedDocument document;
+
+    private final Memoized<List<PreprocessedSentence>> sentences;
+    private final Memoized<List<Token>> allTokens;
+
+    private final Memoized<List<String>> ngrams;
+    private final Memoized<List<String>> partsOfSpeech;
+    private final Memoized<Sentiment> sentiment;
+    private final Memoized<List<NamedEntity>> entities;
+    private final Memoized<List<SpoTuple>> relations;
+    private final Memoized<Integer> quotesCount;
+    private final Memoized<Integer> uniqueWordsCount;
+    private final Memoized<List<TfIdfTerm>> tfIdf;
+    private final Memoized<DocumentEmbeddings> word2Vec;
+    private final Memoized<DocumentEmbeddings> gloVe;
+
+    LazyDocumentFeatures(DocumentProcessor processor, AnnotatedDocument document) {
+        this.processor = processor;
+        this.document = document;
+
+        sentences = new Memoized<>(() -> processor.preprocessSentences(document));
+        allTokens = new Memoized<>(() -> sentences.get().stream()
+                .flatMap(sentence -> sentence.tokens.stream())
+                .collect(Collectors.toList()));
+
+        ngrams = new Memoized<>(() -> collect(sentence -> processor.ngrams(sentence.tokens)));
+        partsOfSpeech = new Memoized<>(() -> collect(sentence ->
+                SyntacticFeatures.partsOfSpeech(sentence.tokens)));
+        entities = new Memoized<>(() -> collect(sentence ->
+                SyntacticFeatures.entities(sentence.tokens)));
+        relations = new Memoized<>(() -> collect(sentence ->
+                SyntacticFeatures.relations(sentence.sentence, 0.5)));
+
+        // like the eager extraction, the last sentence decides the sentiment and the quotes
+        sentiment = new Memoized<>(() -> {
+            PreprocessedSentence last = last();
+            return last != null ? processor.scoreSentiment(last.sentence, last.preprocessed) : null;
+        });
+        quotesCount = new Memoized<>(() -> {
+            PreprocessedSentence last = last();
+            return last != null ? last.quotes : null;
+        });
+
+        uniqueWordsCount = new Memoized<>(() -> LexicalFeatures.uniqueTerms(allTokens.get()).size());
+        tfIdf = new Memoized<>(() -> processor.tfIdf(allTokens.get()));
+        // all the vectors of the same embeddings are computed together
+        word2Vec = new Memoized<>(() -> processor.word2vecEmbeddings(allTokens.get(), tfIdf));
+        gloVe = new Memoized<>(() -> processor.gloVeEmbeddings(allTokens.get(), tfIdf));
+    }
+
+    private <T> List<T> collect(Function<PreprocessedSentence, List<T>> extractor) {
+        List<T> values = new ArrayList<>();
+        sentences.get().forEach(sentence -> values.addAll(extractor.apply(sentence)));
+        return values;
+    }
+
+    private PreprocessedSentence last() {
+        List<PreprocessedSentence> preprocessed = sentences.get();
+        return preprocessed.isEmpty() ? null : preprocessed.get(preprocessed.size() - 1);
+    }
+
+    private boolean requested(String feature) {
+        return processor.isRequested(feature);
+    }
+
+    public List<String> getNgrams() {
+        return requested(FeatureTags.NGRAMS) ? ngrams.get() : null;
+    }
+
+    public List<String> getPartsOfSpeech() {
+        return requested(FeatureTags.PARTS_OF_SPEECH) ? partsOfSpeech.get() : null;
+    }
+
+    public Sentiment getSentiment() {
+        return requested(FeatureTags.SENTIMENT) ? sentiment.get() : null;
+    }
+
+    public List<NamedEntity> getEntities() {
+        return requested(FeatureTags.ENTITIES) ? entities.get() : null;
+    }
+
+    public List<SpoTuple> getRelations() {
+        return requested(FeatureTags.RELATIONS) ? relations.get() : null;
+    }
+
+    /**
+     * @return The average length of words, null if not requested
+     * or if no word is left, like the eager extraction.
+     */
+    public Double getAvgWordLength() {
+        return requested(FeatureTags.AVG_WORD_LENGTH) && !allTokens.get().isEmpty() ?
+                DocumentProcessor.avgWordLength(allTokens.get()) :
+                null;
+    }
+
+    /**
+     * @return The average number of words per sentence, null if
+     * not requested or if the document has no sentences.
+     */
+    public Double getAvgWordsPerSentence() {
+        return requested(FeatureTags.AVG_SENTENCE_LENGTH) && !document.sentences.isEmpty() ?
+                (double) allTokens.get().size() / document.sentences.size() :
+                null;
+    }
+
+    public Integer getNumSentences() {
+        return document.sentences.size();
+    }
+
+    public Integer getUniqueWordsCount() {
+        return requested(FeatureTags.UNIQUE_WORDS_COUNT) ? uniqueWordsCount.get() : null;
+    }
+
+    private boolean quotesRequested() {
+        return requested(FeatureTags.CONTAINS_QUOTES) || requested(FeatureTags.COUNTAINS_INCOMPLETE_QUOTES);
+    }
+
+    public Boolean getContainsQuotes() {
+        if (!quotesRequested() || quotesCount.get() == null)
+            return null;
+        return quotesCount.get() > 0;
+    }
+
+    public Boolean getContainsIncompleteQuotes() {
+        if (!quotesRequested() || quotesCount.get() == null)
+            return null;
+        return quotesCount.get() % 2 != 0;
+    }
+
+    public List<TfIdfTerm> getTfIdf() {
+        return requested(FeatureTags.TF_IDF) ? tfIdf.get() : null;
+    }
+
+    public double[] getWord2Vec() {
+        return requested(FeatureTags.WORD2VEC) ? word2Vec.get().mean : null;
+    }
+
+    public double[] getGloVe() {
+        return requested(FeatureTags.GLOVE) ? gloVe.get().mean : null;
+    }
+
+    public double[] getWord2VecTfIdf() {
+        return requested(FeatureTags.WORD2VEC_TF_IDF) ? word2Vec.get().tfIdfMean : null;
+    }
+
+    public double[] getWord2VecSif() {
+        return requested(FeatureTags.WORD2VEC_SIF) ? word2Vec.get().sif : null;
+    }
+
+    public double[] getGloVeTfIdf() {
+        return requested(FeatureTags.GLOVE_TF_IDF) ? gloVe.get().tfIdfMean : null;
+    }
+
+    public double[] getGloVeSif() {
+        return requested(FeatureTags.GLOVE_SIF) ? gloVe.get().sif : null;
+    }
+
+    /**
+     * Computes every requested feature which wasn't computed yet.
+     * @return The features as a plain (serializable) object.
+     */
+    public DocumentFeatures toDocumentFeatures() {
+        DocumentFeatures features = new DocumentFeatures();
+        features.ngrams = getNgrams();
+        features.partsOfSpeech = getPartsOfSpeech();
+        features.sentiment = getSentiment();
+        features.entities = getEntities();
+        features.relations = getRelations();
+        features.avgWordLength = getAvgWordLength();
+        features.avgWordsPerSentence = getAvgWordsPerSentence();
+        features.numSentences = getNumSentences();
+        features.uniqueWordsCount = getUniqueWordsCount();
+        features.containsQuotes = getContainsQuotes();
+        features.containsIncompleteQuotes = getContainsIncompleteQuotes();
+        features.tfIdf = getTfIdf();
+        features.word2Vec = getWord2Vec();
+        features.gloVe = getGloVe();
+        features.word2VecTfIdf = getWord2VecTfIdf();
+        features.word2VecSif = getWord2VecSif();
+        features.gloVeTfIdf = getGloVeTfIdf();
+        features.gloVeSif = getGloVeSif();
+        return features;
+    }
+}
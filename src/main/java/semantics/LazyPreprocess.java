@@ -1,35 +1,197 @@
 package semantics;
 
 import edu.stanford.nlp.coref.data.CorefChain;
-import edu.stanford.nlp.coref.data.Dictionaries;
 import edu.stanford.nlp.simple.Document;
 import edu.stanford.nlp.simple.Sentence;
 import edu.stanford.nlp.simple.Token;
-import edu.stanford.nlp.util.IntPair;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
+/**
+ * A pre-processing engine which applies all the pre-processing
+ * steps to a sentence in a single pass over its token indices.
+ * A token is only created for words which are kept, and only words
+ * whose text changes get a new string. Unlike {@link Preprocess},
+ * no intermediate token lists or sentences are created.
+ *
+ * The steps to apply are chosen the same way as in
+ * {@link ExtractionProcess}, e.g.
+ * <pre>
+ *     new LazyPreprocess().lemmatize().normalizeTweets().removePunctuation()
+ * </pre>
+ */
 public class LazyPreprocess {
-    /* ==== some helpers ==== */
-    static Pattern punctuationPattern = Pattern.compile("\\p{Punct}");
+    private boolean lemmatize;
+    private boolean removePunctuation;
+    private boolean normalizeHashtags;
+    private boolean removeMentions;
+    private boolean removeUrls;
+    private boolean resolveCorefs;
+
+    public LazyPreprocess lemmatize() {
+        lemmatize = true;
+        return this;
+    }
+
+    public LazyPreprocess removePunctuation() {
+        removePunctuation = true;
+        return this;
+    }
+
+    /**
+     * Same as {@link Preprocess#normalizeTweet(Sentence)}: strips '#' from
+     * hashtags and removes mentions and URLs.
+     * @return This engine.
+     */
+    public LazyPreprocess normalizeTweets() {
+        normalizeHashtags = true;
+        removeMentions = true;
+        removeUrls = true;
+        return this;
+    }
+
+    /**
+     * Resolves co-references and contractions of "be" and "have"
+     * like {@link Preprocess#resolveSentence(Sentence, Map)}.
+     * @return This engine.
+     */
+    public LazyPreprocess resolveCorefs() {
+        resolveCorefs = true;
+        return this;
+    }
+
+    /**
+     * Pre-processes an annotated sentence in a single pass. The result
+     * is the same as applying the steps of {@link Preprocess} one at a
+     * time: a sentence is only dropped when normalizing tweets leaves
+     * nothing of it, and contractions are resolved with the tag of the
+     * next token left after normalizing tweets.
+     * @param sentence The sentence to pre-process.
+     * @param docCorefs The co-reference chains of the document, could be
+     *                  null if co-references aren't resolved.
+     * @return The pre-processed sentence, or null if no token is left.
+     */
+    PreprocessedSentence preprocess(Sentence sentence, Map<Integer, CorefChain> docCorefs) {
+        int length = sentence.length();
+        List<Token> tokens = new ArrayList<>(length);
+        // the tokens before removing punctuations, only needed if they're removed
+        List<Token> preprocessed = removePunctuation ? new ArrayList<>(length) : tokens;
+        int[] quotes = { 0 };
+        boolean normalized = false;
+
+        boolean resolve = resolveCorefs && docCorefs != null; // sometimes there are not co-refs to resolve
+        Map<Integer, String> resolutions = resolve ?
+                Preprocess.extractResolution(sentence, docCorefs) :
+                Collections.emptyMap();
+
+        for (int i = 0; i < length; i++) {
+            String word = word(sentence, i);
+            if (word == null)
+                continue;
+
+            normalized = true;
+            boolean changed = lemmatize;
+
+            if (normalizeHashtags && word.charAt(0) == '#') {
+                word = word.substring(1);
+                changed = true;
+            }
+
+            String resolution = resolutions.get(i);
+            if (resolution != null) {
+                Token token = new Token(sentence, i);
+                for (String part : resolution.split(" ")) {
+                    keep(new TokenView(token, part), tokens, preprocessed, quotes);
+                }
+                continue;
+            }
+
+            // views return their text as the original text
+            String originalText = changed ? word : sentence.originalText(i);
 
-    static <T> String joinCollection(Collection<T> stream, Function<T, String> mapper) {
-        return String.join(" ", stream.stream().map(mapper).collect(Collectors.toList()));
+            if (resolve && originalText.charAt(0) == '\'') {
+                String resolved = Preprocess.resolveBeHave(originalText, sentence.posTag(i), nextPosTag(sentence, i));
+                keep(new TokenView(new Token(sentence, i), resolved), tokens, preprocessed, quotes);
+            }
+            else if (changed) {
+                keep(new TokenView(new Token(sentence, i), word), tokens, preprocessed, quotes);
+            }
+            else {
+                keep(new Token(sentence, i), tokens, preprocessed, quotes);
+            }
+        }
+
+        if (normalizeHashtags && !normalized)
+            return null;
+
+        return new PreprocessedSentence(sentence, preprocessed, tokens, quotes[0]);
     }
 
-    static boolean isPunctuation(String word) {
-        return punctuationPattern.matcher(word).matches();
+    /**
+     * @return The text of a token after lemmatization, or null
+     * if normalizing tweets removes the token.
+     */
+    private String word(Sentence sentence, int index) {
+        String word = lemmatize ? sentence.lemma(index) : sentence.word(index);
+        if (word.isEmpty())
+            return null;
+
+        char first = word.charAt(0);
+        if (removeMentions && first == '@')
+            return null;
+        if (removeUrls && word.startsWith("http"))
+            return null;
+        if (normalizeHashtags && word.equals("#"))
+            return null; // nothing is left once '#' is stripped
+
+        return word;
     }
 
-    static boolean isPunctuation(Token token) {
-        return punctuationPattern.matcher(token.word()).matches();
+    private String nextPosTag(Sentence sentence, int index) {
+        for (int next = index + 1; next < sentence.length(); next++) {
+            if (word(sentence, next) != null)
+                return sentence.posTag(next);
+        }
+        return null;
     }
-    /* ===================== */
 
+    private void keep(Token token, List<Token> tokens, List<Token> preprocessed, int[] quotes) {
+        String word = token.word();
+
+        if (word.equals("''"))
+            quotes[0]++; // counted here since removing punctuations would drop them
+
+        if (removePunctuation) {
+            preprocessed.add(token);
+            if (isPunctuation(word))
+                return;
+        }
+
+        tokens.add(token);
+    }
+
+    /**
+     * Same as {@link Preprocess#isPunctuation(String)} without running
+     * a regular expression: \p{Punct} only matches a single ASCII character.
+     */
+    static boolean isPunctuation(String word) {
+        if (word.length() != 1)
+            return false;
+
+        char c = word.charAt(0);
+        return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') ||
+                (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+
+    /* ==== per-word operations, kept for preprocessSentence ==== */
+
+    /**
+     * Applies a list of per-word operations and creates a new sentence.
+     * Replaced by {@link #preprocess(Sentence, Map)} which doesn't
+     * create a new sentence.
+     */
+    @Deprecated
     public static Optional<Sentence> preprocessSentence(Sentence sentence, boolean lemmatize, List<Function<String, String>> operations)
     {
         List<Token> tokens = sentence.tokens();
@@ -69,151 +231,24 @@ public class LazyPreprocess {
     }
 
     public static String resolveBeHave(Token token) {
-        return resolveBeHave(token.word(), token.posTag(), token.next().posTag());
-    }
-
-    static boolean isProperOrNominal (Dictionaries.MentionType mentionType) {
-        return mentionType == Dictionaries.MentionType.NOMINAL || mentionType == Dictionaries.MentionType.PROPER;
+        return Preprocess.resolveBeHave(token.word(), token.posTag(), token.next().posTag());
     }
 
-    static String getRepresentative(CorefChain coref) {
-        return coref != null ?
-                coref.getRepresentativeMention().mentionSpan :
-                null;
-    }
+    /* ==== the rest is shared with Preprocess ==== */
 
     public static Map<Integer, String> extractResolution(Sentence sentence, Map<Integer, CorefChain> docCorefs) {
-        Map<Integer, CorefChain> sentenceCorefs = sentence.coref();
-        Map<Integer, String> resolutions = new HashMap<>();
-
-        for (Integer key : sentenceCorefs.keySet()) {
-            CorefChain chain = sentenceCorefs.get(key);
-            Map<IntPair, Set<CorefChain.CorefMention>> mentionMap = chain.getMentionMap();
-
-            for (IntPair position : mentionMap.keySet()) {
-                Set<CorefChain.CorefMention>  mentions = mentionMap.get(position);
-
-                for (CorefChain.CorefMention mention : mentions) {
-                    if (mention.sentNum - 1 == sentence.sentenceIndex()) {
-                        if (!isProperOrNominal(mention.mentionType)) {
-                            String representative = getRepresentative(docCorefs.get(mention.corefClusterID));
-                            if (representative != null)
-                                resolutions.put(mention.startIndex - 1, representative);
-                        }
-                    }
-                }
-            }
-        }
-
-        return resolutions;
-    }
-
-    static String resolveMD(String token, String nextPos) {
-        if (!token.equals("'d"))
-            return token;
-
-        if (nextPos != null &&
-                (nextPos.equals("VBD") || nextPos.equals("VBN"))) {
-            return "had";
-        }
-
-        return "would";
-    }
-
-    static String resolveVBN(String token) {
-        if (token.equals("'ve"))
-            return "have";
-
-        if (token.equals("'s")) // is this condition ever true?
-            return "has";
-
-        return token;
-    }
-
-    static String resolveVBP(String token) {
-        if (token.equals("'m"))
-            return "am";
-
-        if (token.equals("'ve"))
-            return "have";
-
-        if (token.equals("'re"))
-            return "are";
-
-        return token;
-    }
-
-    static String resolveVBZ(String token, String nextPos) {
-        if (token.equals("'s")) {
-            // all 's are treated as VBZ?
-            if (nextPos.equals("VBG") || !nextPos.startsWith("V"))
-                return "is";
-            return "has";
-        }
-
-        return token;
+        return Preprocess.extractResolution(sentence, docCorefs);
     }
 
     public static String resolveBeHave(String token, String pos, String nextPos) {
-        switch (pos) {
-            case "MD": // CoreNLP treats would ('d) and had ('d) the same so we nee to check what follows
-                return resolveMD(token, nextPos);
-            case "VBN":
-                return resolveVBN(token);
-            case "VBP":
-                return resolveVBP(token);
-            case "VBZ":
-                return resolveVBZ(token, nextPos);
-            default:
-                return token;
-        }
+        return Preprocess.resolveBeHave(token, pos, nextPos);
     }
 
     public static Sentence resolveSentence(Sentence sentence, Map<Integer, CorefChain> docCorefs) {
-        List<Token> tokens = sentence.tokens();
-
-        StringBuilder resolved = new StringBuilder(sentence.length());
-        Map<Integer, String> resolutions = extractResolution(sentence, docCorefs);
-        boolean first = true;
-
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            String resolution = resolutions.get(token.index);
-            String tokenText = token.originalText();
-
-            if (resolution == null) {
-                if (tokenText.charAt(0) == '\'') {
-                    String nextPos = (i < tokens.size() - 1) ?
-                            tokens.get(i+1).posTag() :
-                            null;
-                    resolved.append(' ').append(resolveBeHave(tokenText, token.posTag(), nextPos));
-                }
-                else if (first) {
-                    resolved.append(tokenText);
-                }
-                else {
-                    resolved.append(' ').append(tokenText);
-                }
-            }
-            else {
-                if (!first)
-                    resolved.append(' ').append(resolution);
-                else
-                    resolved.append(resolution);
-            }
-
-            first = false;
-        }
-
-        return new Sentence(resolved.toString());
+        return Preprocess.resolveSentence(sentence, docCorefs);
     }
 
     public static List<Sentence> resolveCorefs(Document document) {
-        Map<Integer, CorefChain> docCorefs = document.coref();
-        List<Sentence> unresolvedSentences = document.sentences();
-
-        return unresolvedSentences.stream()
-                .map(sentence -> resolveSentence(sentence, docCorefs))
-                .collect(Collectors.toList());
+        return Preprocess.resolveCorefs(document);
     }
-} 
+}
@@ -3,9 +3,13 @@ package semantics;
 import edu.stanford.nlp.simple.Sentence;
 import edu.stanford.nlp.simple.Token;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class LexicalFeatures {
     static String createNgram(List<Token> tokens, int start, int n) {
@@ -20,8 +24,9 @@ public class LexicalFeatures {
     }
 
     public static List<String> ngrams(List<Token> tokens, int n) {
-        return tokens.stream()
-                .map(term -> createNgram(tokens, term.index, n))
+        // positions are used rather than token indices since pre-processing could drop or add tokens
+        return IntStream.range(0, tokens.size())
+                .mapToObj(start -> createNgram(tokens, start, n))
                 .filter(ngram -> !ngram.isEmpty())
                 .collect(Collectors.toList());
     }
@@ -45,6 +50,135 @@ public class LexicalFeatures {
         return visited.stream().collect(Collectors.toList());
     }
 
+    /**
+     * Counts unique terms without building a set of strings.
+     * @param tokens The tokens to count.
+     * @param dictionary The dictionary to intern terms in.
+     * @return The number of unique terms.
+     */
+    public static int countUniqueTerms(List<Token> tokens, TermDictionary dictionary) {
+        IntIntMap visited = new IntIntMap(tokens.size());
+        tokens.forEach(token -> visited.put(dictionary.intern(token.word()), 0));
+        return visited.size();
+    }
+
+    /**
+     * Creates the n-grams of a list of tokens like {@link #ngrams(List, int)},
+     * but with the terms interned in a dictionary: the text of every
+     * distinct n-gram is built once and shared by its occurrences.
+     * @param tokens The tokens to create n-grams from.
+     * @param n The number of tokens per n-gram.
+     * @param dictionary The dictionary to intern terms in.
+     * @return The n-grams in the order of the tokens.
+     */
+    public static List<String> ngrams(List<Token> tokens, int n, TermDictionary dictionary) {
+        NgramTable table = new NgramTable(tokens, n, dictionary);
+        String[] texts = table.texts(tokens);
+
+        List<String> ngrams = new ArrayList<>(table.positions.length);
+        for (int slot : table.positions) {
+            ngrams.add(texts[slot]);
+        }
+        return ngrams;
+    }
+
+    /**
+     * Counts the n-grams of a list of tokens, e.g. for a bag of n-grams.
+     * Only the terms are interned, in the same dictionary as
+     * {@link #countUniqueTerms(List, TermDictionary)}, so a dictionary
+     * shared by a whole collection grows with its vocabulary and not
+     * with every distinct n-gram. N-grams are matched by the ids of
+     * their terms and their text is only built once per distinct n-gram.
+     * @param tokens The tokens to create n-grams from.
+     * @param n The number of tokens per n-gram.
+     * @param dictionary The dictionary to intern terms in.
+     * @return The count of every n-gram, named like {@link #ngrams(List, int)},
+     * in the order they first appear.
+     */
+    public static Map<String, Integer> countNgrams(List<Token> tokens, int n, TermDictionary dictionary) {
+        NgramTable table = new NgramTable(tokens, n, dictionary);
+        String[] texts = table.texts(tokens);
+
+        Map<String, Integer> ngrams = new LinkedHashMap<>(table.distinct * 2);
+        for (int slot = 0; slot < table.distinct; slot++) {
+            ngrams.put(texts[slot], table.counts[slot]);
+        }
+        return ngrams;
+    }
+
+    /**
+     * The distinct n-grams of a list of tokens, told apart by the ids
+     * of their terms. Each distinct n-gram gets a slot, in the order
+     * they first appear; n-grams are found by the hash of their ids,
+     * and those sharing a hash are chained through their slots.
+     */
+    private final static class NgramTable {
+        final int[] starts; // slot -> the first position of the n-gram
+        final int[] counts; // slot -> its number of occurrences
+        final int[] positions; // position -> its slot
+        final int n;
+        int distinct;
+
+        NgramTable(List<Token> tokens, int n, TermDictionary dictionary) {
+            int[] ids = new int[tokens.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = dictionary.intern(tokens.get(i).word());
+            }
+
+            int length = n > 0 ? Math.max(0, ids.length - n + 1) : 0;
+            this.n = n;
+            starts = new int[length];
+            counts = new int[length];
+            positions = new int[length];
+
+            IntIntMap heads = new IntIntMap(length); // hash -> the last slot with that hash, plus one
+            int[] previous = new int[length]; // slot -> the slot before it with the same hash, plus one
+
+            for (int start = 0; start < length; start++) {
+                int hash = hash(ids, start) & Integer.MAX_VALUE;
+                int head = heads.get(hash, 0);
+
+                int slot = head - 1;
+                while (slot >= 0 && !sameIds(ids, starts[slot], start))
+                    slot = previous[slot] - 1;
+
+                if (slot < 0) {
+                    slot = distinct++;
+                    starts[slot] = start;
+                    previous[slot] = head;
+                    heads.put(hash, slot + 1);
+                }
+
+                counts[slot]++;
+                positions[start] = slot;
+            }
+        }
+
+        private int hash(int[] ids, int start) {
+            int h = 1;
+            for (int i = start; i < start + n; i++) {
+                h = 31 * h + ids[i];
+            }
+            return h;
+        }
+
+        private boolean sameIds(int[] ids, int first, int second) {
+            for (int i = 0; i < n; i++) {
+                if (ids[first + i] != ids[second + i])
+                    return false;
+            }
+            return true;
+        }
+
+        String[] texts(List<Token> tokens) {
+            String[] texts = new String[distinct];
+            for (int slot = 0; slot < distinct; slot++) {
+                texts[slot] = createNgram(tokens, starts[slot], n);
+            }
+            return texts;
+        }
+    }
+
     public static double avgCharactersPerWord(List<String> uniqueWords) {
         return uniqueWords.stream()
                 .mapToInt(String::length)
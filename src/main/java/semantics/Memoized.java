@@ -0,0 +1,25 @@
+package semantics;
+
+import java.util.function.Supplier;
+
+/**
+ * A supplier which computes its value at most once.
+ */
+class Memoized<T> implements Supplier<T> {
+    private Supplier<T> supplier;
+    private T value;
+
+    Memoized(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public synchronized T get() {
+        if (supplier != null) {
+            value = supplier.get();
+            supplier = null; // let go of whatever the supplier captured
+        }
+
+        return value;
+    }
+}
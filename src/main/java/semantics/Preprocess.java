@@ -17,6 +17,7 @@ public class Preprocess {
     public static String DEPUNCTUATE = "depunctuate";
     public static String COREFS = "corefs";
     public static String NORMALIZE_TWEETS = "normalizeTweets";
+    public static String LAZY = "lazyPreprocess";
 
     /* ==== some helpers ==== */
     static Pattern punctuationPattern = Pattern.compile("\\p{Punct}");
@@ -42,6 +43,18 @@ public class Preprocess {
         return new Sentence(String.join(" ", sentence.lemmas()));
     }
 
+    /**
+     * Replaces every token with its lemma without creating
+     * a new sentence.
+     * @param tokens The tokens of an annotated sentence.
+     * @return Views of the tokens with their lemmas as text.
+     */
+    public static List<Token> lemmatize(List<Token> tokens) {
+        return tokens.stream()
+                .map(token -> new TokenView(token, token.lemma()))
+                .collect(Collectors.toList());
+    }
+
     public static List<Token> removePunctuation(List<Token> tokens) {
         return tokens.stream()
                 .filter(token -> !isPunctuation(token))
@@ -68,6 +81,29 @@ public class Preprocess {
         return new Sentence(tokens);
     }
 
+    /**
+     * Works exactly like {@link #normalizeTweet(Sentence)} but on
+     * tokens, so the sentence doesn't need to be parsed again.
+     * @param tokens The tokens of an annotated sentence.
+     * @return The normalized tokens, empty if nothing is left.
+     */
+    public static List<Token> normalizeTweet(List<Token> tokens) {
+        List<Token> normalized = new ArrayList<>(tokens.size());
+
+        for (Token token : tokens) {
+            String word = token.word();
+
+            if (word.charAt(0) == '#') {
+                if (word.length() > 1) // like the sentence version, empty words are dropped
+                    normalized.add(new TokenView(token, word.substring(1)));
+            }
+            else if (word.charAt(0) != '@' && !word.startsWith("http"))
+                normalized.add(token);
+        }
+
+        return normalized;
+    }
+
     static boolean isProperOrNominal (Dictionaries.MentionType mentionType) {
         return mentionType == Dictionaries.MentionType.NOMINAL || mentionType == Dictionaries.MentionType.PROPER;
     }
@@ -204,6 +240,44 @@ public class Preprocess {
         return new Sentence(resolved.toString());
     }
 
+    /**
+     * Works exactly like {@link #resolveSentence(Sentence, Map)} but
+     * on tokens, so the sentence doesn't need to be parsed again.
+     * A resolution of several words becomes several tokens which
+     * keep the tags of the token they replace.
+     * @param sentence The sentence the tokens belong to.
+     * @param tokens The (possibly already pre-processed) tokens.
+     * @param docCorefs The co-reference chains of the document.
+     * @return The resolved tokens.
+     */
+    public static List<Token> resolveTokens(Sentence sentence, List<Token> tokens, Map<Integer, CorefChain> docCorefs) {
+        Map<Integer, String> resolutions = extractResolution(sentence, docCorefs);
+        List<Token> resolved = new ArrayList<>(tokens.size());
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            String resolution = resolutions.get(token.index);
+            String tokenText = token.originalText();
+
+            if (resolution != null) {
+                for (String word : resolution.split(" ")) {
+                    resolved.add(new TokenView(token, word));
+                }
+            }
+            else if (tokenText.charAt(0) == '\'') {
+                String nextPos = (i < tokens.size() - 1) ?
+                        tokens.get(i+1).posTag() :
+                        null;
+                resolved.add(new TokenView(token, resolveBeHave(tokenText, token.posTag(), nextPos)));
+            }
+            else {
+                resolved.add(token);
+            }
+        }
+
+        return resolved;
+    }
+
     public static List<Sentence> resolveCorefs(Document document) {
         Map<Integer, CorefChain> docCorefs = document.coref();
         List<Sentence> unresolvedSentences = document.sentences();
@@ -0,0 +1,26 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Sentence;
+import edu.stanford.nlp.simple.Token;
+
+import java.util.List;
+
+/**
+ * A sentence along with its tokens after pre-processing.
+ */
+class PreprocessedSentence {
+    final Sentence sentence;
+    /* the tokens before removing punctuations */
+    final List<Token> preprocessed;
+    /* the tokens features are extracted from */
+    final List<Token> tokens;
+    /* the number of double quotes before removing punctuations */
+    final int quotes;
+
+    PreprocessedSentence(Sentence sentence, List<Token> preprocessed, List<Token> tokens, int quotes) {
+        this.sentence = sentence;
+        this.preprocessed = preprocessed;
+        this.tokens = tokens;
+        this.quotes = quotes;
+    }
+}
@@ -0,0 +1,23 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Token;
+
+import java.util.List;
+
+/**
+ * The features of a single sentence. Extracted independently
+ * for every sentence and then merged, in order, into the
+ * features of the whole document.
+ */
+class SentenceFeatures {
+    List<String> ngrams;
+    List<String> partsOfSpeech;
+    List<NamedEntity> entities;
+    List<SpoTuple> relations;
+    Sentiment sentiment;
+    int quotes;
+
+    /* the tokens and their total length, kept for the document-level features */
+    List<Token> tokens;
+    int characters;
+}
@@ -0,0 +1,118 @@
+package semantics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Smooth inverse frequency (SIF) weighting of word vectors: every
+ * word is weighted by a / (a + p(w)), then the projection on the
+ * first principal component of a corpus' document vectors is removed.
+ *
+ * p(w) is estimated as the fraction of the corpus' documents which
+ * contain the word, since that's what {@link IDocumentFrequencies}
+ * collects. Until {@link #fitComponent(List)} is called, documents
+ * only get the weighted mean; the usual workflow is to process a
+ * sample of the corpus, fit the component on the resulting vectors,
+ * then process the rest.
+ */
+public class SifModel {
+    public final static double DEFAULT_A = 1e-3;
+    private final static int ITERATIONS = 100;
+
+    private final IDocumentFrequencies frequencies;
+    private final double a;
+    private volatile double[] component;
+
+    public SifModel(IDocumentFrequencies frequencies) {
+        this(frequencies, DEFAULT_A);
+    }
+
+    public SifModel(IDocumentFrequencies frequencies, double a) {
+        this.frequencies = frequencies;
+        this.a = a;
+    }
+
+    /**
+     * @param word A word.
+     * @return The weight of the word, 1 for words the corpus doesn't have.
+     */
+    public double weight(String word) {
+        long documents = frequencies.documents();
+        if (documents == 0)
+            return 1;
+
+        double probability = (double) frequencies.documentFrequency(word) / documents;
+        return a / (a + probability);
+    }
+
+    /**
+     * Finds the first principal component (uncentered, as in the SIF
+     * paper) of a set of weighted document vectors by power iteration.
+     * @param vectors The weighted means of a corpus' documents.
+     * @return This model.
+     */
+    public SifModel fitComponent(List<double[]> vectors) {
+        int dimension = vectors.get(0).length;
+        double[] u = new double[dimension];
+        Arrays.fill(u, 1 / Math.sqrt(dimension));
+
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            double[] next = new double[dimension];
+            for (double[] vector : vectors) {
+                double projection = dot(vector, u);
+                for (int i = 0; i < dimension; i++) {
+                    next[i] += projection * vector[i];
+                }
+            }
+
+            double norm = Math.sqrt(dot(next, next));
+            if (norm == 0)
+                break;
+            for (int i = 0; i < dimension; i++) {
+                next[i] /= norm;
+            }
+            u = next;
+        }
+
+        component = u;
+        return this;
+    }
+
+    public double[] getComponent() {
+        return component;
+    }
+
+    /**
+     * Sets a component fitted earlier, e.g. by another process.
+     * @param component A unit vector.
+     * @return This model.
+     */
+    public SifModel setComponent(double[] component) {
+        this.component = component;
+        return this;
+    }
+
+    /**
+     * Removes the projection of a vector on the fitted component,
+     * if there is one.
+     * @param vector The vector to change in place.
+     */
+    public void removeComponent(double[] vector) {
+        double[] u = component;
+        if (u == null)
+            return;
+
+        double projection = dot(vector, u);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] -= projection * u[i];
+        }
+    }
+
+    private static double dot(double[] x, double[] y) {
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,281 @@
+package semantics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Processes an unbounded stream of documents. Every stage of
+ * {@link DocumentProcessor} runs on its own workers and the stages
+ * are connected by bounded queues. When a stage is slow (e.g.
+ * extracting relations) the queues before it fill up and
+ * {@link #submit(String)} blocks, so the heap stays bounded no
+ * matter how fast documents arrive.
+ *
+ * Outputs are handed to the sink by a single thread, but not
+ * necessarily in the order the documents were submitted.
+ *
+ * A document failing with an exception is dropped. An error (or any
+ * other way a worker could die) fails the whole stream instead: the
+ * first one is kept, every worker is stopped, and submitting or
+ * closing throws an IllegalStateException caused by it.
+ * @param <T> The serialized form of the features.
+ */
+public class StreamingProcessor<T> implements AutoCloseable {
+    public enum Stage {
+        SPLIT, ANNOTATE, FEATURES, SERIALIZE
+    }
+
+    private final static Object END = new Object();
+    private final static long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final DocumentProcessor processor;
+    private final Function<DocumentFeatures, T> serializer;
+    private final Consumer<T> sink;
+
+    private final Map<Stage, Integer> parallelism = new EnumMap<>(Stage.class);
+    private int bufferSize = 64;
+
+    private BlockingQueue<Object> input;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean closed;
+
+    /**
+     * @param processor The processor whose stages are run.
+     * @param serializer Converts the features of a document into
+     *                   its output form (e.g. DocumentFeatures::toMsgpackBytes).
+     * @param sink Receives the outputs, always from the same thread.
+     */
+    public StreamingProcessor(DocumentProcessor processor, Function<DocumentFeatures, T> serializer, Consumer<T> sink) {
+        this.processor = processor;
+        this.serializer = serializer;
+        this.sink = sink;
+
+        for (Stage stage : Stage.values()) {
+            parallelism.put(stage, 1);
+        }
+    }
+
+    /**
+     * Sets the number of workers of the annotation and feature
+     * extraction stages, which are the expensive ones.
+     * @param workers The number of workers per stage.
+     * @return This processor.
+     */
+    public StreamingProcessor<T> setParallelism(int workers) {
+        setParallelism(Stage.ANNOTATE, workers);
+        return setParallelism(Stage.FEATURES, workers);
+    }
+
+    public StreamingProcessor<T> setParallelism(Stage stage, int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("A stage needs at least one worker, got " + workers);
+
+        parallelism.put(stage, workers);
+        return this;
+    }
+
+    /**
+     * Sets the capacity of the queue in front of every stage.
+     * @param bufferSize The maximum number of documents waiting per stage.
+     * @return This processor.
+     */
+    public StreamingProcessor<T> setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public StreamingProcessor<T> start() {
+        if (input != null)
+            throw new IllegalStateException("The stream is already started");
+
+        input = new ArrayBlockingQueue<>(bufferSize);
+        BlockingQueue<Object> annotateQueue = new ArrayBlockingQueue<>(bufferSize);
+        BlockingQueue<Object> featuresQueue = new ArrayBlockingQueue<>(bufferSize);
+        BlockingQueue<Object> serializeQueue = new ArrayBlockingQueue<>(bufferSize);
+        BlockingQueue<Object> output = new ArrayBlockingQueue<>(bufferSize);
+
+        startStage(Stage.SPLIT, input, annotateQueue,
+                text -> processor.splitDocument((String) text));
+        startStage(Stage.ANNOTATE, annotateQueue, featuresQueue,
+                document -> processor.annotate((AnnotatedDocument) document));
+        startStage(Stage.FEATURES, featuresQueue, serializeQueue,
+                document -> processor.extractFeatures((AnnotatedDocument) document));
+        startStage(Stage.SERIALIZE, serializeQueue, output,
+                features -> serializer.apply((DocumentFeatures) features));
+
+        startThread("stream-sink", () -> drain(output));
+
+        // started only once they're all known, so that a failing one can stop the others
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        return this;
+    }
+
+    /**
+     * Adds a document to the stream, waiting while the
+     * stream is full.
+     * @param text The text of the document.
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the stream isn't open or failed.
+     */
+    public void submit(String text) throws InterruptedException {
+        checkOpen();
+        put(text);
+    }
+
+    /**
+     * Adds a document to the stream, waiting up to a timeout
+     * while the stream is full.
+     * @return True if the document was added.
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the stream isn't open or failed.
+     */
+    public boolean offer(String text, long timeout, TimeUnit unit) throws InterruptedException {
+        checkOpen();
+
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
+        // waits in slices so that a failure of the stream is noticed
+        while (!input.offer(text, Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS)) {
+            checkFailure();
+            remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting documents and waits until every
+     * submitted document reaches the sink. Closing again
+     * does nothing.
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the stream failed.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        checkStarted();
+        if (closed)
+            return;
+
+        closed = true;
+        try {
+            put(END);
+        } finally {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        checkFailure();
+    }
+
+    private void put(Object item) throws InterruptedException {
+        while (!input.offer(item, POLL_NANOS, TimeUnit.NANOSECONDS)) {
+            checkFailure();
+        }
+    }
+
+    private void startStage(Stage stage, BlockingQueue<Object> from, BlockingQueue<Object> to,
+                            Function<Object, Object> work)
+    {
+        int workers = parallelism.get(stage);
+        AtomicInteger running = new AtomicInteger(workers);
+
+        for (int i = 0; i < workers; i++) {
+            startThread("stream-" + stage.name().toLowerCase() + "-" + i, () -> {
+                while (true) {
+                    Object item = from.take();
+
+                    if (item == END) {
+                        from.put(END); // let the other workers of this stage see it too
+                        // the last worker to stop ends the next stage
+                        if (running.decrementAndGet() == 0)
+                            to.put(END);
+                        return;
+                    }
+
+                    try {
+                        to.put(work.apply(item));
+                    } catch (RuntimeException ex) {
+                        // a single bad document shouldn't stop the stream
+                        ex.printStackTrace();
+                    }
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain(BlockingQueue<Object> output) throws InterruptedException {
+        Object item;
+        while ((item = output.take()) != END) {
+            try {
+                sink.accept((T) item);
+            } catch (RuntimeException ex) {
+                // same as the stages, otherwise the stream would stall once the output is full
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private void checkStarted() {
+        if (input == null)
+            throw new IllegalStateException("The stream isn't started");
+    }
+
+    private void checkOpen() {
+        checkStarted();
+        if (closed)
+            throw new IllegalStateException("The stream is closed");
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        Throwable cause = failure.get();
+        if (cause != null)
+            throw new IllegalStateException("The stream failed", cause);
+    }
+
+    /**
+     * Keeps the first failure and stops every other worker, so that
+     * nothing waits forever on a stage which lost its workers.
+     */
+    private void fail(Throwable cause) {
+        if (!failure.compareAndSet(null, cause))
+            return;
+
+        for (Thread thread : threads) {
+            if (thread != Thread.currentThread())
+                thread.interrupt();
+        }
+    }
+
+    private interface InterruptibleTask {
+        void run() throws InterruptedException;
+    }
+
+    private void startThread(String name, InterruptibleTask task) {
+        Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                // including an interruption: the stage could be left without workers
+                fail(ex);
+            }
+        }, name);
+
+        thread.setDaemon(true);
+        threads.add(thread);
+    }
+}
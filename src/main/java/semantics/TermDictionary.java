@@ -0,0 +1,125 @@
+package semantics;
+
+import java.util.Arrays;
+
+/**
+ * Interns terms into dense int ids using open addressing. Lookups
+ * of known terms are lock-free; adding a new term takes a lock.
+ * Since ids are never removed, a dictionary shared by many
+ * documents grows with the vocabulary of the whole collection.
+ */
+public class TermDictionary {
+    private final static class Entry {
+        final String term;
+        final int id;
+
+        Entry(String term, int id) {
+            this.term = term;
+            this.id = id;
+        }
+    }
+
+    private volatile Entry[] table;
+    private String[] terms;
+    private int size;
+
+    public TermDictionary() {
+        this(1024);
+    }
+
+    public TermDictionary(int expectedTerms) {
+        table = new Entry[tableSize(expectedTerms)];
+        terms = new String[Math.max(16, expectedTerms)];
+    }
+
+    private static int tableSize(int terms) {
+        int size = 16;
+        while (size < terms * 2)
+            size <<= 1;
+        return size;
+    }
+
+    private static int hash(String term) {
+        int h = term.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int find(Entry[] table, String term) {
+        int mask = table.length - 1;
+        for (int slot = hash(term) & mask; ; slot = (slot + 1) & mask) {
+            Entry entry = table[slot];
+            if (entry == null)
+                return -1;
+            if (entry.term.equals(term))
+                return entry.id;
+        }
+    }
+
+    /**
+     * @param term A term.
+     * @return The id of the term, or -1 if it wasn't interned.
+     */
+    public int id(String term) {
+        return find(table, term);
+    }
+
+    /**
+     * Gets the id of a term, assigning the next free id
+     * if the term is new.
+     * @param term A term.
+     * @return The id of the term.
+     */
+    public int intern(String term) {
+        int id = find(table, term);
+        return id >= 0 ? id : add(term);
+    }
+
+    private synchronized int add(String term) {
+        int id = find(table, term); // another thread could have added it
+        if (id >= 0)
+            return id;
+
+        id = size++;
+        if (id == terms.length)
+            terms = Arrays.copyOf(terms, terms.length * 2);
+        terms[id] = term;
+
+        Entry[] current = table;
+        if (size * 2 > current.length) {
+            current = rehash(current, current.length * 2);
+        }
+        insert(current, new Entry(term, id));
+        table = current; // publishes the new entry along with a resized table
+
+        return id;
+    }
+
+    private static void insert(Entry[] table, Entry entry) {
+        int mask = table.length - 1;
+        int slot = hash(entry.term) & mask;
+        while (table[slot] != null)
+            slot = (slot + 1) & mask;
+        table[slot] = entry;
+    }
+
+    private static Entry[] rehash(Entry[] table, int newSize) {
+        Entry[] resized = new Entry[newSize];
+        for (Entry entry : table) {
+            if (entry != null)
+                insert(resized, entry);
+        }
+        return resized;
+    }
+
+    /**
+     * @param id The id of an interned term.
+     * @return The term.
+     */
+    public synchronized String term(int id) {
+        return terms[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
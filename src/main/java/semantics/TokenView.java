@@ -0,0 +1,29 @@
+package semantics;
+
+import edu.stanford.nlp.simple.Token;
+
+/**
+ * A token whose text was changed by a pre-processing step
+ * (e.g. lemmatization or resolving a co-reference). Only the
+ * text is replaced; the tags, the lemma, and the position are
+ * still read from the original annotated sentence, so nothing
+ * needs to be parsed again.
+ */
+public class TokenView extends Token {
+    private final String word;
+
+    public TokenView(Token token, String word) {
+        super(token.sentence, token.index);
+        this.word = word;
+    }
+
+    @Override
+    public String word() {
+        return word;
+    }
+
+    @Override
+    public String originalText() {
+        return word;
+    }
+}
@@ -0,0 +1,75 @@
+package semantics;
+
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * Word embeddings backed by a DL4J model loaded on the heap,
+ * e.g. through {@link DocumentProcessor#defaultWord2vecLoader}.
+ *
+ * Vectors are read from the weights of the lookup table, one row
+ * per word of the vocabulary, straight into the accumulator rather
+ * than copied into a new array for every word.
+ */
+public class WordVectorsEmbeddings implements IWordEmbeddings {
+    private final WordVectors vectors;
+    private final INDArray weights; // null if the table doesn't expose them
+    private final int dimension;
+
+    public WordVectorsEmbeddings(WordVectors vectors) {
+        this.vectors = vectors;
+        this.weights = vectors.lookupTable().getWeights();
+        this.dimension = vectors.lookupTable().layerSize();
+    }
+
+    public WordVectors getWordVectors() {
+        return vectors;
+    }
+
+    @Override
+    public int size() {
+        return vectors.vocab().numWords();
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Iterable<String> words() {
+        return vectors.vocab().words();
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return vectors.hasWord(word);
+    }
+
+    @Override
+    public boolean addTo(String word, double weight, double[] accumulator) {
+        if (weights == null)
+            return addRow(word, weight, accumulator);
+
+        int row = vectors.vocab().indexOf(word);
+        if (row < 0)
+            return false;
+
+        for (int i = 0; i < dimension; i++) {
+            accumulator[i] += weight * weights.getDouble(row, i);
+        }
+        return true;
+    }
+
+    private boolean addRow(String word, double weight, double[] accumulator) {
+        if (!vectors.hasWord(word))
+            return false;
+
+        INDArray vector = vectors.getWordVectorMatrix(word); // a view of the row of the table
+        for (int i = 0; i < dimension; i++) {
+            accumulator[i] += weight * vector.getDouble(i);
+        }
+        return true;
+    }
+}
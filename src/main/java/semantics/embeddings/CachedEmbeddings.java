@@ -0,0 +1,226 @@
+package semantics.embeddings;
+
+import semantics.IWordEmbeddings;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of word vectors in front of slower embeddings
+ * (a DL4J model, or a mapped file whose pages could be evicted).
+ * Words missing from the embeddings are cached too, so repeated
+ * out-of-vocabulary words don't cost a lookup each time.
+ *
+ * Eviction is a segmented LRU: a word enters a probation segment
+ * and is promoted to a protected segment on its second hit, so words
+ * which are seen once (most of a Zipfian vocabulary) can't push out
+ * the frequent ones. The cache is split in independently locked
+ * shards by hash. A single instance can be shared by processors,
+ * e.g. with {@link semantics.DocumentProcessor#setWord2vec(IWordEmbeddings)}.
+ */
+public class CachedEmbeddings implements IWordEmbeddings {
+    private final static float[] MISSING = new float[0];
+    private final static int SHARDS = 16;
+    private final static double PROTECTED_SHARE = 0.8;
+
+    private final IWordEmbeddings embeddings;
+    private final Shard[] shards = new Shard[SHARDS];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param embeddings The embeddings to cache.
+     * @param capacity The maximum number of cached words.
+     */
+    public CachedEmbeddings(IWordEmbeddings embeddings, int capacity) {
+        this.embeddings = embeddings;
+
+        int shardCapacity = Math.max(2, capacity / SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(shardCapacity);
+        }
+    }
+
+    private final class Shard {
+        private final int protectedCapacity;
+        private final int probationCapacity;
+
+        // access-ordered, so the first entry is the least recently used
+        private final LinkedHashMap<String, float[]> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, float[]> protectedWords = new LinkedHashMap<>(16, 0.75f, true);
+
+        Shard(int capacity) {
+            protectedCapacity = (int) (capacity * PROTECTED_SHARE);
+            probationCapacity = capacity - protectedCapacity;
+        }
+
+        synchronized float[] get(String word) {
+            float[] vector = protectedWords.get(word);
+            if (vector != null)
+                return vector;
+
+            vector = probation.remove(word);
+            if (vector != null) {
+                protectedWords.put(word, vector);
+
+                if (protectedWords.size() > protectedCapacity) {
+                    // demote the least recently used protected word, giving it another chance
+                    Map.Entry<String, float[]> demoted = removeEldest(protectedWords);
+                    putOnProbation(demoted.getKey(), demoted.getValue());
+                }
+            }
+
+            return vector;
+        }
+
+        synchronized void put(String word, float[] vector) {
+            if (!protectedWords.containsKey(word) && !probation.containsKey(word))
+                putOnProbation(word, vector);
+        }
+
+        private void putOnProbation(String word, float[] vector) {
+            probation.put(word, vector);
+
+            if (probation.size() > probationCapacity) {
+                removeEldest(probation);
+                evictions.increment();
+            }
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedWords.size();
+        }
+
+        synchronized void clear() {
+            probation.clear();
+            protectedWords.clear();
+        }
+    }
+
+    private static Map.Entry<String, float[]> removeEldest(LinkedHashMap<String, float[]> words) {
+        Iterator<Map.Entry<String, float[]>> iterator = words.entrySet().iterator();
+        Map.Entry<String, float[]> eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    private Shard shard(String word) {
+        int h = word.hashCode();
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    private float[] lookup(String word) {
+        Shard shard = shard(word);
+        float[] vector = shard.get(word);
+
+        if (vector != null) {
+            hits.increment();
+            return vector;
+        }
+
+        misses.increment();
+
+        // loaded outside of the lock; two threads could load the same word, which is harmless
+        double[] loaded = new double[embeddings.dimension()];
+        if (embeddings.addTo(word, 1.0, loaded)) {
+            vector = new float[loaded.length];
+            for (int i = 0; i < loaded.length; i++) {
+                vector[i] = (float) loaded[i];
+            }
+        }
+        else {
+            vector = MISSING;
+        }
+
+        shard.put(word, vector);
+        return vector;
+    }
+
+    @Override
+    public int size() {
+        return embeddings.size();
+    }
+
+    @Override
+    public int dimension() {
+        return embeddings.dimension();
+    }
+
+    @Override
+    public Iterable<String> words() {
+        return embeddings.words();
+    }
+
+    /**
+     * Asks the embeddings directly: a membership check isn't a vector
+     * fetch, so it doesn't count as a hit or a miss and doesn't change
+     * what's cached.
+     */
+    @Override
+    public boolean contains(String word) {
+        return embeddings.contains(word);
+    }
+
+    @Override
+    public boolean addTo(String word, double weight, double[] accumulator) {
+        float[] vector = lookup(word);
+        if (vector == MISSING)
+            return false;
+
+        for (int i = 0; i < vector.length; i++) {
+            accumulator[i] += weight * vector[i];
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of vectors fetched from the cache.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of vectors fetched from the embeddings.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public double hitRate() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return The number of cached words.
+     */
+    public int cachedWords() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Empties the cache and resets the counters.
+     */
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+}
@@ -0,0 +1,86 @@
+package semantics.embeddings;
+
+import semantics.IWordEmbeddings;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pools the vectors of a document's words into a single vector.
+ * Words missing from the embeddings are skipped; if none is found
+ * the result is all zeros. The arithmetic is done by the kernel
+ * selected in {@link PoolingKernels}.
+ */
+public class EmbeddingPooling {
+    private final IPoolingKernel kernel;
+
+    public EmbeddingPooling() {
+        this(PoolingKernels.get());
+    }
+
+    public EmbeddingPooling(IPoolingKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    public double[] sum(List<String> words, IWordEmbeddings embeddings) {
+        double[] sum = new double[embeddings.dimension()];
+        for (String word : words) {
+            embeddings.addTo(word, 1.0, sum);
+        }
+        return sum;
+    }
+
+    public double[] mean(List<String> words, IWordEmbeddings embeddings) {
+        double[] mean = new double[embeddings.dimension()];
+        int found = 0;
+
+        for (String word : words) {
+            if (embeddings.addTo(word, 1.0, mean))
+                found++;
+        }
+
+        if (found > 1)
+            kernel.scale(mean, 1.0 / found);
+        return mean;
+    }
+
+    /**
+     * @param weights The weight of every word, in the same order.
+     * @return The mean divided by the weights of the found words.
+     */
+    public double[] weightedMean(List<String> words, double[] weights, IWordEmbeddings embeddings) {
+        double[] mean = new double[embeddings.dimension()];
+        double total = 0;
+
+        for (int i = 0; i < words.size(); i++) {
+            if (embeddings.addTo(words.get(i), weights[i], mean))
+                total += weights[i];
+        }
+
+        if (total != 0)
+            kernel.scale(mean, 1.0 / total);
+        return mean;
+    }
+
+    /**
+     * Takes the maximum of every dimension over the vectors of the words.
+     */
+    public double[] max(List<String> words, IWordEmbeddings embeddings) {
+        double[] max = new double[embeddings.dimension()];
+        double[] vector = new double[max.length];
+        boolean found = false;
+
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (String word : words) {
+            Arrays.fill(vector, 0);
+            if (embeddings.addTo(word, 1.0, vector)) {
+                kernel.max(max, vector);
+                found = true;
+            }
+        }
+
+        if (!found)
+            Arrays.fill(max, 0);
+        return max;
+    }
+}
@@ -0,0 +1,213 @@
+package semantics.embeddings;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts word2vec binary files and GloVe text files into the format
+ * read by {@link MappedEmbeddings}, so that the parsing is done once
+ * (e.g. at build time) instead of on every start. Files are streamed;
+ * only the vocabulary is kept in memory. Gzipped inputs are accepted.
+ *
+ * Usage:
+ * <pre>
+ *     EmbeddingsConverter word2vec GoogleNews-vectors-negative300.bin google.emb
+ *     EmbeddingsConverter glove glove.6B.50d.txt glove.emb
+ *     EmbeddingsConverter glove glove.6B.50d.txt glove-int8.emb int8
+ * </pre>
+ * The optional last argument is the {@link Encoding} of the rows.
+ * The converted files are then used through
+ * {@link semantics.DocumentProcessor#useMappedWord2vec(String)} and
+ * {@link semantics.DocumentProcessor#useMappedGloVe(String)}.
+ */
+public class EmbeddingsConverter {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 && args.length != 4) {
+            System.err.println("Usage: EmbeddingsConverter <word2vec|glove> <input> <output> [float32|int8|float16]");
+            System.exit(1);
+        }
+
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        Encoding encoding = args.length == 4 ? Encoding.valueOf(args[3].toUpperCase()) : Encoding.FLOAT32;
+        long start = System.nanoTime();
+        int words;
+
+        switch (args[0].toLowerCase()) {
+            case "word2vec":
+                words = convertWord2vec(input, output, encoding);
+                break;
+            case "glove":
+                words = convertGloVe(input, output, encoding);
+                break;
+            default:
+                System.err.println("Unknown format: " + args[0]);
+                System.exit(1);
+                return;
+        }
+
+        System.out.printf("Converted %d words in %.1fs%n", words, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static InputStream open(Path path) throws IOException {
+        InputStream stream = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+        return path.toString().endsWith(".gz") ? new BufferedInputStream(new GZIPInputStream(stream), 1 << 16) : stream;
+    }
+
+    /**
+     * Converts a word2vec binary file: a "words dimension" header line,
+     * then every word followed by a space and its little-endian floats.
+     * @return The number of converted words.
+     */
+    public static int convertWord2vec(Path input, Path output) throws IOException {
+        return convertWord2vec(input, output, Encoding.FLOAT32);
+    }
+
+    public static int convertWord2vec(Path input, Path output, Encoding encoding) throws IOException {
+        try (DataInputStream in = new DataInputStream(open(input))) {
+            String[] header = readToken(in, '\n').trim().split("\\s+");
+            int words = Integer.parseInt(header[0]);
+            int dimension = Integer.parseInt(header[1]);
+
+            byte[] bytes = new byte[dimension * Float.BYTES];
+            ByteBuffer row = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            float[] vector = new float[dimension];
+
+            try (EmbeddingsWriter writer = new EmbeddingsWriter(output, dimension, encoding)) {
+                for (int i = 0; i < words; i++) {
+                    String word = readToken(in, ' ').trim(); // rows may be separated by a new line
+                    in.readFully(bytes);
+
+                    for (int j = 0; j < dimension; j++) {
+                        vector[j] = row.getFloat(j * Float.BYTES);
+                    }
+                    writer.add(word, vector);
+                }
+            }
+
+            return words;
+        }
+    }
+
+    private static String readToken(DataInputStream in, char delimiter) throws IOException {
+        ByteArrayOutputStream token = new ByteArrayOutputStream(32);
+        int b;
+        while ((b = in.read()) != delimiter) {
+            if (b == -1)
+                throw new EOFException("Unexpected end of the embeddings file");
+            token.write(b);
+        }
+        return new String(token.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts a GloVe text file, where every line is a word followed by
+     * its values separated by spaces. Words may contain spaces themselves
+     * (the 840B release has some), so the values are read from the end of
+     * the line and everything before them is the word. The dimension is
+     * taken from a "words dimension" header line (word2vec text format) if
+     * there is one, else from the number of values ending the first line.
+     * @return The number of converted words.
+     */
+    public static int convertGloVe(Path input, Path output) throws IOException {
+        return convertGloVe(input, output, Encoding.FLOAT32);
+    }
+
+    public static int convertGloVe(Path input, Path output, Encoding encoding) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(open(input), StandardCharsets.UTF_8), 1 << 16))
+        {
+            String line = reader.readLine();
+            int number = 1;
+            int dimension = -1;
+            if (line != null && line.trim().matches("\\d+\\s+\\d+")) {
+                dimension = Integer.parseInt(line.trim().split("\\s+")[1]);
+                line = reader.readLine();
+                number++;
+            }
+            if (line == null)
+                throw new EOFException("The embeddings file is empty");
+
+            if (dimension < 0)
+                dimension = countValues(line);
+            float[] vector = new float[dimension];
+            int words = 0;
+
+            try (EmbeddingsWriter writer = new EmbeddingsWriter(output, dimension, encoding)) {
+                for (; line != null; line = reader.readLine(), number++) {
+                    if (line.isEmpty())
+                        continue;
+
+                    writer.add(parseLine(line, number, vector), vector);
+                    words++;
+                }
+            }
+
+            return words;
+        }
+    }
+
+    /**
+     * @return The number of values ending a line, leaving at least one field for the word.
+     */
+    private static int countValues(String line) {
+        String[] fields = stripEnd(line).split(" ");
+        int values = 0;
+        while (values < fields.length - 1 && isNumber(fields[fields.length - 1 - values]))
+            values++;
+        return values;
+    }
+
+    private static boolean isNumber(String field) {
+        try {
+            Float.parseFloat(field);
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private static String stripEnd(String line) {
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1)))
+            end--;
+        return line.substring(0, end);
+    }
+
+    /**
+     * Parses the values of a line, from its end, into a vector without
+     * splitting it into strings.
+     * @return The word of the line, everything before the values.
+     */
+    private static String parseLine(String line, int number, float[] vector) throws IOException {
+        line = stripEnd(line);
+        int end = line.length();
+
+        for (int i = vector.length - 1; i >= 0; i--) {
+            int start = line.lastIndexOf(' ', end - 1) + 1;
+            if (start == 0)
+                throw new IOException("line " + number + ": expected a word and " + vector.length + " values");
+
+            try {
+                vector[i] = Float.parseFloat(line.substring(start, end));
+            } catch (NumberFormatException ex) {
+                throw new IOException("line " + number + ": expected " + vector.length + " values but got \"" +
+                        line.substring(start, end) + "\"");
+            }
+            end = start - 1;
+        }
+
+        String word = line.substring(0, end);
+        int space = word.lastIndexOf(' ');
+        if (word.isEmpty() || space >= 0 && isNumber(word.substring(space + 1)))
+            throw new IOException("line " + number + ": more than " + vector.length + " values");
+
+        return word;
+    }
+}
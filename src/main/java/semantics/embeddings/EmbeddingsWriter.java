@@ -0,0 +1,196 @@
+package semantics.embeddings;
+
+import semantics.IWordEmbeddings;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes word embeddings in the format read by {@link MappedEmbeddings}.
+ * Vectors are streamed to a temporary file as they're added, so only
+ * the words are kept in memory; the file itself is assembled on
+ * {@link #close()}. If a word is added more than once, its first
+ * vector is used. Rows are stored as float32 unless a quantized
+ * {@link Encoding} is given.
+ */
+public class EmbeddingsWriter implements Closeable {
+    private final Path path;
+    private final int dimension;
+    private final Encoding encoding;
+
+    private final Path matrixFile;
+    private final DataOutputStream matrix;
+    private final ByteBuffer row;
+    private final float[] vector;
+
+    private final List<byte[]> words = new ArrayList<>();
+
+    public EmbeddingsWriter(Path path, int dimension) throws IOException {
+        this(path, dimension, Encoding.FLOAT32);
+    }
+
+    public EmbeddingsWriter(Path path, int dimension, Encoding encoding) throws IOException {
+        this.path = path;
+        this.dimension = dimension;
+        this.encoding = encoding;
+
+        matrixFile = Files.createTempFile(path.toAbsolutePath().getParent(), "embeddings", ".matrix");
+        matrix = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(matrixFile), 1 << 16));
+        row = ByteBuffer.allocate(encoding.rowBytes(dimension)).order(ByteOrder.LITTLE_ENDIAN);
+        vector = new float[dimension];
+    }
+
+    /**
+     * Converts an embeddings table (e.g. one loaded through DL4J).
+     * @param embeddings The embeddings to convert.
+     * @param path The path of the new file.
+     * @throws IOException If the file can't be written.
+     */
+    public static void write(IWordEmbeddings embeddings, Path path) throws IOException {
+        write(embeddings, path, Encoding.FLOAT32);
+    }
+
+    /**
+     * Converts an embeddings table, e.g. quantizes a float32 file.
+     * @param embeddings The embeddings to convert.
+     * @param path The path of the new file.
+     * @param encoding The encoding of the rows of the new file.
+     * @throws IOException If the file can't be written.
+     */
+    public static void write(IWordEmbeddings embeddings, Path path, Encoding encoding) throws IOException {
+        double[] vector = new double[embeddings.dimension()];
+
+        try (EmbeddingsWriter writer = new EmbeddingsWriter(path, embeddings.dimension(), encoding)) {
+            for (String word : embeddings.words()) {
+                Arrays.fill(vector, 0);
+                embeddings.addTo(word, 1.0, vector);
+                writer.add(word, vector);
+            }
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    public void add(String word, float[] vector) throws IOException {
+        row.clear();
+        encoding.encode(vector, row);
+        addRow(word);
+    }
+
+    public void add(String word, double[] vector) throws IOException {
+        for (int i = 0; i < dimension; i++) {
+            this.vector[i] = (float) vector[i];
+        }
+        add(word, this.vector);
+    }
+
+    private void addRow(String word) throws IOException {
+        matrix.write(row.array());
+        words.add(word.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws IOException {
+        matrix.close();
+
+        try {
+            writeFile();
+        } finally {
+            Files.deleteIfExists(matrixFile);
+        }
+    }
+
+    private void writeFile() throws IOException {
+        int rows = words.size();
+        Integer[] order = new Integer[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        // stable, so the first of duplicate words comes first
+        Arrays.sort(order, (a, b) -> compareBytes(words.get(a), words.get(b)));
+
+        int[] sorted = new int[rows];
+        int unique = 0;
+        for (int i = 0; i < rows; i++) {
+            if (unique == 0 || compareBytes(words.get(order[i]), words.get(sorted[unique - 1])) != 0)
+                sorted[unique++] = order[i];
+        }
+
+        long stringsOffset = MappedEmbeddings.HEADER_SIZE + (2L * unique + 1) * Integer.BYTES;
+        long stringsLength = 0;
+        for (int i = 0; i < unique; i++) {
+            stringsLength += words.get(sorted[i]).length;
+        }
+        long matrixOffset = align(stringsOffset + stringsLength);
+
+        if (matrixOffset - MappedEmbeddings.HEADER_SIZE > Integer.MAX_VALUE)
+            throw new IOException("The vocabulary is too large");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path), 1 << 16)))
+        {
+            ByteBuffer header = ByteBuffer.allocate(MappedEmbeddings.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MappedEmbeddings.MAGIC).putInt(MappedEmbeddings.VERSION)
+                    .putInt(unique).putInt(rows).putInt(dimension).putInt(encoding.id)
+                    .putLong(stringsOffset).putLong(matrixOffset);
+            out.write(header.array());
+
+            ByteBuffer ints = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int offset = 0;
+            for (int i = 0; i <= unique; i++) {
+                out.write(ints.putInt(0, offset).array());
+                if (i < unique)
+                    offset += words.get(sorted[i]).length;
+            }
+            for (int i = 0; i < unique; i++) {
+                out.write(ints.putInt(0, sorted[i]).array());
+            }
+            for (int i = 0; i < unique; i++) {
+                out.write(words.get(sorted[i]));
+            }
+
+            for (long i = stringsOffset + stringsLength; i < matrixOffset; i++) {
+                out.write(0);
+            }
+        }
+
+        try (FileChannel source = FileChannel.open(matrixFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+        {
+            long size = source.size();
+            for (long position = 0; position < size; ) {
+                position += source.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    private static long align(long offset) {
+        long alignment = MappedEmbeddings.ALIGNMENT;
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (difference != 0)
+                return difference;
+        }
+        return a.length - b.length;
+    }
+}
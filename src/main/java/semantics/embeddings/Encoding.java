@@ -0,0 +1,124 @@
+package semantics.embeddings;
+
+import java.nio.ByteBuffer;
+
+/**
+ * How the rows of an embeddings matrix are stored. The quantized
+ * encodings trade a small loss of precision for a smaller file,
+ * which means less memory (page cache) per host; vectors are
+ * dequantized while they're accumulated, never as a whole.
+ */
+public enum Encoding {
+    /**
+     * 4 bytes per value.
+     */
+    FLOAT32(0) {
+        @Override
+        public int rowBytes(int dimension) {
+            return dimension * Float.BYTES;
+        }
+
+        @Override
+        void encode(float[] vector, ByteBuffer row) {
+            for (float value : vector) {
+                row.putFloat(value);
+            }
+        }
+
+        @Override
+        void addTo(ByteBuffer rows, int offset, double weight, double[] accumulator, IPoolingKernel kernel) {
+            kernel.addScaled(accumulator, rows, offset, weight);
+        }
+    },
+
+    /**
+     * 1 byte per value plus a float scale per row:
+     * value = scale * byte, where scale = max(|value|) / 127.
+     */
+    INT8(1) {
+        @Override
+        public int rowBytes(int dimension) {
+            return Float.BYTES + dimension;
+        }
+
+        @Override
+        void encode(float[] vector, ByteBuffer row) {
+            float max = 0;
+            for (float value : vector) {
+                max = Math.max(max, Math.abs(value));
+            }
+
+            float scale = max / 127;
+            row.putFloat(scale);
+            for (float value : vector) {
+                row.put(scale == 0 ? 0 : (byte) Math.round(value / scale));
+            }
+        }
+
+        @Override
+        void addTo(ByteBuffer rows, int offset, double weight, double[] accumulator, IPoolingKernel kernel) {
+            double scale = weight * rows.getFloat(offset);
+            int values = offset + Float.BYTES;
+
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] += scale * rows.get(values + i);
+            }
+        }
+    },
+
+    /**
+     * 2 bytes per value, as IEEE 754 half-precision floats.
+     */
+    FLOAT16(2) {
+        @Override
+        public int rowBytes(int dimension) {
+            return dimension * Short.BYTES;
+        }
+
+        @Override
+        void encode(float[] vector, ByteBuffer row) {
+            for (float value : vector) {
+                row.putShort(HalfFloats.toHalf(value));
+            }
+        }
+
+        @Override
+        void addTo(ByteBuffer rows, int offset, double weight, double[] accumulator, IPoolingKernel kernel) {
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] += weight * HalfFloats.toFloat(rows.getShort(offset + i * Short.BYTES));
+            }
+        }
+    };
+
+    final int id;
+
+    Encoding(int id) {
+        this.id = id;
+    }
+
+    static Encoding fromId(int id) {
+        for (Encoding encoding : values()) {
+            if (encoding.id == id)
+                return encoding;
+        }
+        throw new IllegalArgumentException("Unknown encoding " + id);
+    }
+
+    /**
+     * @param dimension The dimension of the vectors.
+     * @return The number of bytes of a row.
+     */
+    public abstract int rowBytes(int dimension);
+
+    /**
+     * Writes a vector at the position of a buffer.
+     */
+    abstract void encode(float[] vector, ByteBuffer row);
+
+    /**
+     * Adds a row, multiplied by a weight, to an accumulator.
+     * @param rows A buffer of encoded rows.
+     * @param offset The byte offset of the row.
+     */
+    abstract void addTo(ByteBuffer rows, int offset, double weight, double[] accumulator, IPoolingKernel kernel);
+}
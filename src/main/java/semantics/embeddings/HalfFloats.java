@@ -0,0 +1,64 @@
+package semantics.embeddings;
+
+/**
+ * Conversions between floats and IEEE 754 half-precision floats
+ * stored in shorts (Java 8 has no Float.floatToFloat16).
+ */
+final class HalfFloats {
+    // every half is decoded through a table rather than bit twiddling on each read
+    private final static float[] FLOATS = new float[1 << 16];
+
+    static {
+        for (int half = 0; half < FLOATS.length; half++) {
+            FLOATS[half] = decode(half);
+        }
+    }
+
+    private HalfFloats() {
+    }
+
+    static float toFloat(short half) {
+        return FLOATS[half & 0xFFFF];
+    }
+
+    private static float decode(int half) {
+        int sign = (half & 0x8000) << 16;
+        int exponent = (half >>> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+
+        if (exponent == 0) { // zero or subnormal
+            float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 31) // infinity or NaN
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * Converts a float to the nearest half (ties away from zero).
+     * Values beyond the range of halves become infinities.
+     */
+    static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int magnitude = bits & 0x7FFFFFFF;
+
+        if (magnitude >= 0x7F800000) // infinity or NaN
+            return (short) (sign | 0x7C00 | (magnitude > 0x7F800000 ? 0x200 : 0));
+
+        int rounded = magnitude + 0x1000; // half of the last kept mantissa bit
+        if (rounded >= 0x47800000) // overflows
+            return (short) (sign | 0x7C00);
+        if (rounded >= 0x38800000) // normal
+            return (short) (sign | ((rounded - 0x38000000) >>> 13));
+        if (magnitude < 0x33000000) // rounds to zero
+            return (short) sign;
+
+        // subnormal
+        int exponent = magnitude >>> 23;
+        int mantissa = (magnitude & 0x7FFFFF) | 0x800000;
+        return (short) (sign | ((mantissa + (0x800000 >>> (exponent - 102))) >>> (126 - exponent)));
+    }
+}
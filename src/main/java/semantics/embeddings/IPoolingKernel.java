@@ -0,0 +1,34 @@
+package semantics.embeddings;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The arithmetic used to pool word vectors into a document vector.
+ * Implementations are stateless and shared by threads.
+ * @see PoolingKernels
+ */
+public interface IPoolingKernel {
+    /**
+     * accumulator += weight * vector
+     */
+    void addScaled(double[] accumulator, double[] vector, double weight);
+
+    /**
+     * Same as {@link #addScaled(double[], double[], double)} with the vector
+     * read from float32 values stored in a buffer.
+     * @param floats A buffer of floats in its own byte order.
+     * @param offset The byte offset of the vector in the buffer.
+     */
+    void addScaled(double[] accumulator, ByteBuffer floats, int offset, double weight);
+
+    /**
+     * accumulator = max(accumulator, vector), element-wise, with the
+     * semantics of Math.max: NaN wins and 0.0 is above -0.0
+     */
+    void max(double[] accumulator, double[] vector);
+
+    /**
+     * vector *= factor
+     */
+    void scale(double[] vector, double factor);
+}
@@ -0,0 +1,223 @@
+package semantics.embeddings;
+
+import semantics.IWordEmbeddings;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Word embeddings read directly from a memory-mapped file written
+ * by {@link EmbeddingsWriter}. Nothing is copied onto the heap, so
+ * opening a file takes milliseconds, and processes on the same host
+ * share the pages of the file through the OS page cache.
+ *
+ * The file is laid out as (little-endian):
+ * <pre>
+ *     header     magic, version, words, rows, dimension, encoding (ints)
+ *                strings offset, matrix offset (longs)
+ *     vocabulary int[words + 1] offsets of the UTF-8 words, sorted by bytes
+ *                int[words] the row of every word
+ *                the UTF-8 bytes of the words
+ *     matrix     the rows in their {@link Encoding}, aligned to 64 bytes
+ * </pre>
+ * Version 1 files (which only had float32 rows) are still read.
+ * Words are found by a binary search over their bytes. The matrix
+ * is mapped in chunks of whole rows since a single mapping can't
+ * exceed 2GB.
+ */
+public class MappedEmbeddings implements IWordEmbeddings {
+    final static int MAGIC = 0x53454D42; // "SEMB"
+    final static int VERSION = 2;
+    final static int HEADER_SIZE = 40;
+    final static int ALIGNMENT = 64;
+
+    private final int words;
+    private final int dimension;
+    private final Encoding encoding;
+    private final int rowBytes;
+
+    private final ByteBuffer vocabulary;
+    private final int stringsStart;
+
+    private final ByteBuffer[] chunks;
+    private final int rowsPerChunk;
+
+    private final IPoolingKernel kernel = PoolingKernels.get();
+
+    private MappedEmbeddings(FileChannel channel) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        if (header.getInt(0) != MAGIC)
+            throw new IOException("Not an embeddings file");
+        int version = header.getInt(4);
+        if (version != 1 && version != VERSION)
+            throw new IOException("Unsupported embeddings file version " + version);
+
+        words = header.getInt(8);
+        int rows = header.getInt(12);
+        dimension = header.getInt(16);
+        encoding = version == 1 ? Encoding.FLOAT32 : Encoding.fromId(header.getInt(20));
+        rowBytes = encoding.rowBytes(dimension);
+        long stringsOffset = header.getLong(24);
+        long matrixOffset = header.getLong(32);
+
+        vocabulary = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, matrixOffset - HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        stringsStart = (int) (stringsOffset - HEADER_SIZE);
+
+        rowsPerChunk = Math.max(1, Integer.MAX_VALUE / rowBytes);
+        chunks = new ByteBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int chunkRows = Math.min(rowsPerChunk, rows - chunk * rowsPerChunk);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    matrixOffset + (long) chunk * rowsPerChunk * rowBytes, (long) chunkRows * rowBytes);
+            chunks[chunk] = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Maps an embeddings file. The file stays mapped after the
+     * channel is closed, until the instance is garbage collected.
+     * @param path The path of a file written by {@link EmbeddingsWriter}.
+     * @return The mapped embeddings.
+     * @throws IOException If the file can't be read or has a different format.
+     */
+    public static MappedEmbeddings open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedEmbeddings(channel);
+        }
+    }
+
+    @Override
+    public int size() {
+        return words;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    /**
+     * @return The size of the matrix in bytes.
+     */
+    public long matrixBytes() {
+        long rows = 0;
+        for (ByteBuffer chunk : chunks) {
+            rows += chunk.capacity() / rowBytes;
+        }
+        return rows * rowBytes;
+    }
+
+    /**
+     * @param word The word to look up.
+     * @return The row of the word in the matrix, or -1 if it isn't in the table.
+     */
+    public int row(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = words - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, key);
+
+            if (comparison < 0)
+                low = middle + 1;
+            else if (comparison > 0)
+                high = middle - 1;
+            else
+                return vocabulary.getInt((words + 1 + middle) * Integer.BYTES);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Compares the bytes of the i-th word to a key as unsigned bytes,
+     * which is the order the writer sorts words in.
+     */
+    private int compare(int i, byte[] key) {
+        int start = stringsStart + vocabulary.getInt(i * Integer.BYTES);
+        int length = stringsStart + vocabulary.getInt((i + 1) * Integer.BYTES) - start;
+        int common = Math.min(length, key.length);
+
+        for (int j = 0; j < common; j++) {
+            int difference = (vocabulary.get(start + j) & 0xFF) - (key[j] & 0xFF);
+            if (difference != 0)
+                return difference;
+        }
+
+        return length - key.length;
+    }
+
+    private String word(int i) {
+        int start = stringsStart + vocabulary.getInt(i * Integer.BYTES);
+        int end = stringsStart + vocabulary.getInt((i + 1) * Integer.BYTES);
+
+        byte[] bytes = new byte[end - start];
+        for (int j = 0; j < bytes.length; j++) {
+            bytes[j] = vocabulary.get(start + j);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Iterable<String> words() {
+        return () -> new Iterator<String>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < words;
+            }
+
+            @Override
+            public String next() {
+                if (next >= words)
+                    throw new NoSuchElementException();
+                return word(next++);
+            }
+        };
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return row(word) >= 0;
+    }
+
+    @Override
+    public boolean addTo(String word, double weight, double[] accumulator) {
+        int row = row(word);
+        if (row < 0)
+            return false;
+
+        addRow(row, weight, accumulator);
+        return true;
+    }
+
+    /**
+     * Adds a row of the matrix, multiplied by a weight, to an accumulator.
+     */
+    public void addRow(int row, double weight, double[] accumulator) {
+        ByteBuffer chunk = chunks[row / rowsPerChunk];
+        int offset = (row % rowsPerChunk) * rowBytes;
+
+        // rows are only read with absolute gets, so a buffer is safely shared by threads
+        encoding.addTo(chunk, offset, weight, accumulator, kernel);
+    }
+}
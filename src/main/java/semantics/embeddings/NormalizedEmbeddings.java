@@ -0,0 +1,157 @@
+package semantics.embeddings;
+
+import semantics.IWordEmbeddings;
+import semantics.LazyPreprocess;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Falls back to a normalized form of a word when the word itself
+ * isn't in the embeddings, so that "The", "café", or "#Paris" find
+ * the vectors of "the", "cafe", and "Paris". Words are normalized by
+ * lowercasing, removing accents, and stripping hashtags like
+ * {@link LazyPreprocess#normalizeHashtag(String)}.
+ *
+ * The normalized form of every word of the vocabulary is indexed
+ * once, when the instance is created, so a fallback is a single
+ * hash lookup rather than trying variants of the word one by one.
+ * When several words share a normalized form, the one which is
+ * already normalized is preferred, then the first one seen.
+ */
+public class NormalizedEmbeddings implements IWordEmbeddings {
+    private final static Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private final IWordEmbeddings embeddings;
+    private final Map<String, String> index;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder outOfVocabulary = new LongAdder();
+
+    public NormalizedEmbeddings(IWordEmbeddings embeddings) {
+        this.embeddings = embeddings;
+        this.index = new HashMap<>(embeddings.size() * 2);
+
+        for (String word : embeddings.words()) {
+            String key = normalize(word);
+            if (key.equals(word) || !index.containsKey(key))
+                index.put(key, word);
+        }
+    }
+
+    /**
+     * Lowercases, removes accents, and strips the '#' of hashtags.
+     * Words which are already normalized are returned as they are,
+     * and ASCII words are lowercased directly; only words with other
+     * characters go through Unicode normalization.
+     * @param word A word.
+     * @return The normalized form of the word.
+     */
+    public static String normalize(String word) {
+        if (word.isEmpty())
+            return word;
+
+        int start = word.charAt(0) == '#' ? 1 : 0;
+        boolean upperCase = false;
+        for (int i = start; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 128)
+                return normalizeUnicode(word);
+            upperCase |= c >= 'A' && c <= 'Z';
+        }
+
+        if (!upperCase)
+            return start == 0 ? word : word.substring(start);
+
+        char[] key = new char[word.length() - start];
+        for (int i = 0; i < key.length; i++) {
+            char c = word.charAt(start + i);
+            key[i] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(key);
+    }
+
+    private static String normalizeUnicode(String word) {
+        String key = LazyPreprocess.normalizeHashtag(word).toLowerCase(Locale.ROOT);
+        return ACCENTS.matcher(Normalizer.normalize(key, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * @param word A word.
+     * @return The word of the embeddings which is used for the word,
+     * or null if there is none.
+     */
+    public String resolve(String word) {
+        if (embeddings.contains(word))
+            return word;
+        return index.get(normalize(word));
+    }
+
+    @Override
+    public int size() {
+        return embeddings.size();
+    }
+
+    @Override
+    public int dimension() {
+        return embeddings.dimension();
+    }
+
+    @Override
+    public Iterable<String> words() {
+        return embeddings.words();
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return resolve(word) != null;
+    }
+
+    @Override
+    public boolean addTo(String word, double weight, double[] accumulator) {
+        lookups.increment();
+
+        if (embeddings.addTo(word, weight, accumulator))
+            return true;
+
+        String fallback = index.get(normalize(word));
+        if (fallback != null && embeddings.addTo(fallback, weight, accumulator)) {
+            fallbacks.increment();
+            return true;
+        }
+
+        outOfVocabulary.increment();
+        return false;
+    }
+
+    /**
+     * @return The number of words looked up through {@link #addTo(String, double, double[])}.
+     */
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return The number of words found through their normalized form.
+     */
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * @return The number of words not found at all.
+     */
+    public long outOfVocabulary() {
+        return outOfVocabulary.sum();
+    }
+
+    public double outOfVocabularyRate() {
+        long lookups = lookups();
+        return lookups == 0 ? 0 : (double) outOfVocabulary() / lookups;
+    }
+}
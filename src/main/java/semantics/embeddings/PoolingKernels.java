@@ -0,0 +1,145 @@
+package semantics.embeddings;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The available pooling kernels. The kernel is chosen once, at class
+ * loading, from the "semantics.pooling" system property ("scalar" or
+ * "unrolled"), and defaults to the unrolled one.
+ *
+ * The project targets Java 8 so the incubating Vector API can't be
+ * used; the unrolled kernel instead processes four independent lanes
+ * per iteration, which the JIT turns into packed SIMD instructions
+ * for the double[] loops and which at least breaks the dependency
+ * chain of the loops reading from buffers.
+ */
+public final class PoolingKernels {
+    public final static String PROPERTY = "semantics.pooling";
+
+    /**
+     * One element per iteration; the reference implementation.
+     */
+    public final static IPoolingKernel SCALAR = new IPoolingKernel() {
+        @Override
+        public void addScaled(double[] accumulator, double[] vector, double weight) {
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] += weight * vector[i];
+            }
+        }
+
+        @Override
+        public void addScaled(double[] accumulator, ByteBuffer floats, int offset, double weight) {
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] += weight * floats.getFloat(offset + i * Float.BYTES);
+            }
+        }
+
+        @Override
+        public void max(double[] accumulator, double[] vector) {
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] = Math.max(accumulator[i], vector[i]);
+            }
+        }
+
+        @Override
+        public void scale(double[] vector, double factor) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= factor;
+            }
+        }
+    };
+
+    /**
+     * Four elements per iteration, then the remainder one by one.
+     */
+    public final static IPoolingKernel UNROLLED = new IPoolingKernel() {
+        @Override
+        public void addScaled(double[] accumulator, double[] vector, double weight) {
+            int length = accumulator.length;
+            int bound = length & ~3;
+            int i = 0;
+
+            for (; i < bound; i += 4) {
+                accumulator[i] += weight * vector[i];
+                accumulator[i + 1] += weight * vector[i + 1];
+                accumulator[i + 2] += weight * vector[i + 2];
+                accumulator[i + 3] += weight * vector[i + 3];
+            }
+            for (; i < length; i++) {
+                accumulator[i] += weight * vector[i];
+            }
+        }
+
+        @Override
+        public void addScaled(double[] accumulator, ByteBuffer floats, int offset, double weight) {
+            int length = accumulator.length;
+            int bound = length & ~3;
+            int i = 0;
+
+            for (int position = offset; i < bound; i += 4, position += 4 * Float.BYTES) {
+                float a = floats.getFloat(position);
+                float b = floats.getFloat(position + Float.BYTES);
+                float c = floats.getFloat(position + 2 * Float.BYTES);
+                float d = floats.getFloat(position + 3 * Float.BYTES);
+
+                accumulator[i] += weight * a;
+                accumulator[i + 1] += weight * b;
+                accumulator[i + 2] += weight * c;
+                accumulator[i + 3] += weight * d;
+            }
+            for (; i < length; i++) {
+                accumulator[i] += weight * floats.getFloat(offset + i * Float.BYTES);
+            }
+        }
+
+        @Override
+        public void max(double[] accumulator, double[] vector) {
+            int length = accumulator.length;
+            int bound = length & ~3;
+            int i = 0;
+
+            for (; i < bound; i += 4) {
+                accumulator[i] = Math.max(accumulator[i], vector[i]);
+                accumulator[i + 1] = Math.max(accumulator[i + 1], vector[i + 1]);
+                accumulator[i + 2] = Math.max(accumulator[i + 2], vector[i + 2]);
+                accumulator[i + 3] = Math.max(accumulator[i + 3], vector[i + 3]);
+            }
+            for (; i < length; i++) {
+                accumulator[i] = Math.max(accumulator[i], vector[i]);
+            }
+        }
+
+        @Override
+        public void scale(double[] vector, double factor) {
+            int length = vector.length;
+            int bound = length & ~3;
+            int i = 0;
+
+            for (; i < bound; i += 4) {
+                vector[i] *= factor;
+                vector[i + 1] *= factor;
+                vector[i + 2] *= factor;
+                vector[i + 3] *= factor;
+            }
+            for (; i < length; i++) {
+                vector[i] *= factor;
+            }
+        }
+    };
+
+    private final static IPoolingKernel selected = select(System.getProperty(PROPERTY));
+
+    private PoolingKernels() {
+    }
+
+    static IPoolingKernel select(String name) {
+        return "scalar".equalsIgnoreCase(name) ? SCALAR : UNROLLED;
+    }
+
+    /**
+     * @return The kernel selected for this JVM.
+     */
+    public static IPoolingKernel get() {
+        return selected;
+    }
+}
@@ -0,0 +1,89 @@
+package semantics.embeddings;
+
+import semantics.IWordEmbeddings;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Measures how far quantized embeddings are from the float32
+ * ones they were converted from, e.g.
+ * <pre>
+ *     QuantizationReport google.emb google-int8.emb
+ * </pre>
+ */
+public class QuantizationReport {
+    public int words;
+    public double meanCosine;
+    public double minCosine = 1;
+    public double maxAbsoluteError;
+    public double meanAbsoluteError;
+
+    /**
+     * Compares the vectors of every word of the baseline.
+     * @param baseline The float32 embeddings.
+     * @param quantized The quantized embeddings of the same words.
+     * @return The report.
+     */
+    public static QuantizationReport compare(IWordEmbeddings baseline, IWordEmbeddings quantized) {
+        QuantizationReport report = new QuantizationReport();
+        double[] expected = new double[baseline.dimension()];
+        double[] actual = new double[baseline.dimension()];
+        double cosines = 0;
+        double errors = 0;
+
+        for (String word : baseline.words()) {
+            Arrays.fill(expected, 0);
+            Arrays.fill(actual, 0);
+            baseline.addTo(word, 1.0, expected);
+            if (!quantized.addTo(word, 1.0, actual))
+                throw new IllegalArgumentException("The quantized embeddings don't have \"" + word + "\"");
+
+            double dot = 0, expectedNorm = 0, actualNorm = 0;
+            for (int i = 0; i < expected.length; i++) {
+                double error = Math.abs(expected[i] - actual[i]);
+                report.maxAbsoluteError = Math.max(report.maxAbsoluteError, error);
+                errors += error;
+
+                dot += expected[i] * actual[i];
+                expectedNorm += expected[i] * expected[i];
+                actualNorm += actual[i] * actual[i];
+            }
+
+            double cosine = expectedNorm == 0 || actualNorm == 0 ? 1 :
+                    dot / Math.sqrt(expectedNorm * actualNorm);
+            report.minCosine = Math.min(report.minCosine, cosine);
+            cosines += cosine;
+            report.words++;
+        }
+
+        if (report.words > 0) {
+            report.meanCosine = cosines / report.words;
+            report.meanAbsoluteError = errors / ((double) report.words * expected.length);
+        }
+
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("words: %d%ncosine similarity: mean %.6f, min %.6f%nabsolute error: mean %.6g, max %.6g",
+                words, meanCosine, minCosine, meanAbsoluteError, maxAbsoluteError);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: QuantizationReport <float32 file> <quantized file>");
+            System.exit(1);
+        }
+
+        MappedEmbeddings baseline = MappedEmbeddings.open(Paths.get(args[0]));
+        MappedEmbeddings quantized = MappedEmbeddings.open(Paths.get(args[1]));
+
+        System.out.println(compare(baseline, quantized));
+        System.out.printf("matrix size: %d bytes (%s) vs %d bytes (%s), %.2fx smaller%n",
+                baseline.matrixBytes(), baseline.encoding(), quantized.matrixBytes(), quantized.encoding(),
+                (double) baseline.matrixBytes() / quantized.matrixBytes());
+    }
+}
@@ -0,0 +1,256 @@
+package semantics.information;
+
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, array-backed copy of a {@link SemanticGraph}, built
+ * once per sentence so that the extraction can walk it without
+ * allocating lists or looking up edges in hash maps.
+ *
+ * Nodes are numbered in the order of {@link SemanticGraph#vertexListSorted()}
+ * and edges in the order of {@link SemanticGraph#edgeIterable()}. Each
+ * edge keeps its relation as a {@link RelationMatcher} label. The edges
+ * leaving a node are stored contiguously (CSR style), in the order of
+ * {@link SemanticGraph#outgoingEdgeList(IndexedWord)}, and so are its
+ * distinct children, in the order of {@link SemanticGraph#getChildList(IndexedWord)},
+ * each with all the edges reaching it, the first one being
+ * {@link SemanticGraph#getEdge(IndexedWord, IndexedWord)}.
+ */
+public final class CompactGraph {
+    private final IndexedWord[] words;
+    private final Map<IndexedWord, Integer> nodes;
+
+    private final SemanticGraphEdge[] edges;
+    private final int[] governors;
+    private final int[] dependents;
+    private final int[] relations;
+
+    private final int[] outgoingOffsets;
+    private final int[] outgoing;
+
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] childEdgeOffsets;
+    private final int[] childEdges;
+
+    private CompactGraph(SemanticGraph graph) {
+        List<IndexedWord> vertices = graph.vertexListSorted();
+        words = vertices.toArray(new IndexedWord[vertices.size()]);
+        nodes = new HashMap<>(words.length * 2);
+        for (int node = 0; node < words.length; node++)
+            nodes.put(words[node], node);
+
+        List<SemanticGraphEdge> edgeList = new ArrayList<>();
+        graph.edgeIterable().forEach(edgeList::add);
+        edges = edgeList.toArray(new SemanticGraphEdge[edgeList.size()]);
+
+        governors = new int[edges.length];
+        dependents = new int[edges.length];
+        relations = new int[edges.length];
+        for (int edge = 0; edge < edges.length; edge++) {
+            governors[edge] = nodes.get(edges[edge].getGovernor());
+            dependents[edge] = nodes.get(edges[edge].getDependent());
+            relations[edge] = RelationMatcher.label(edges[edge]);
+        }
+
+        // a stable counting sort by governor keeps the order of the outgoing edges
+        outgoingOffsets = new int[words.length + 1];
+        for (int governor : governors)
+            outgoingOffsets[governor + 1]++;
+        for (int node = 0; node < words.length; node++)
+            outgoingOffsets[node + 1] += outgoingOffsets[node];
+
+        outgoing = new int[edges.length];
+        int[] cursors = new int[words.length];
+        for (int edge = 0; edge < edges.length; edge++) {
+            int governor = governors[edge];
+            outgoing[outgoingOffsets[governor] + cursors[governor]++] = edge;
+        }
+
+        // the outgoing edges of every node, sorted by child, so that the edges
+        // reaching the same child are adjacent, the first one first
+        childEdges = outgoing.clone();
+        childOffsets = new int[words.length + 1];
+        int[] childList = new int[edges.length];
+        int[] childEdgeOffsetList = new int[edges.length + 1];
+        int count = 0;
+
+        for (int node = 0; node < words.length; node++) {
+            int from = outgoingOffsets[node], to = outgoingOffsets[node + 1];
+            sortByDependent(childEdges, from, to);
+
+            for (int i = from; i < to; i++) {
+                int child = dependents[childEdges[i]];
+                if (count > childOffsets[node] && childList[count - 1] == child)
+                    continue;
+
+                childList[count] = child;
+                childEdgeOffsetList[count] = i;
+                count++;
+            }
+            childOffsets[node + 1] = count;
+        }
+        childEdgeOffsetList[count] = edges.length;
+
+        children = trim(childList, count);
+        childEdgeOffsets = trim(childEdgeOffsetList, count + 1);
+    }
+
+    public static CompactGraph of(SemanticGraph graph) {
+        return new CompactGraph(graph);
+    }
+
+    /**
+     * A stable insertion sort; the degree of a node is small.
+     */
+    private void sortByDependent(int[] edgeIds, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int edge = edgeIds[i];
+            int j = i - 1;
+            while (j >= from && dependents[edgeIds[j]] > dependents[edge]) {
+                edgeIds[j + 1] = edgeIds[j];
+                j--;
+            }
+            edgeIds[j + 1] = edge;
+        }
+    }
+
+    private static int[] trim(int[] values, int length) {
+        int[] trimmed = new int[length];
+        System.arraycopy(values, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    /* nodes */
+
+    public int size() {
+        return words.length;
+    }
+
+    public IndexedWord word(int node) {
+        return words[node];
+    }
+
+    /**
+     * @return The id of the word's node, or -1 if the word isn't in the graph.
+     */
+    public int node(IndexedWord word) {
+        Integer node = nodes.get(word);
+        return node != null ? node : -1;
+    }
+
+    /* edges */
+
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    public SemanticGraphEdge edge(int edge) {
+        return edges[edge];
+    }
+
+    public int governor(int edge) {
+        return governors[edge];
+    }
+
+    public int dependent(int edge) {
+        return dependents[edge];
+    }
+
+    /**
+     * @return The label of the relation of the edge, see {@link RelationMatcher#label(String)}.
+     */
+    public int relation(int edge) {
+        return relations[edge];
+    }
+
+    public boolean matches(int edge, RelationMatcher matcher) {
+        return matcher.matchesLabel(relations[edge]);
+    }
+
+    /* outgoing edges, by position: outgoingStart(node) <= i < outgoingEnd(node) */
+
+    public int outgoingStart(int node) {
+        return outgoingOffsets[node];
+    }
+
+    public int outgoingEnd(int node) {
+        return outgoingOffsets[node + 1];
+    }
+
+    public int outgoingEdge(int position) {
+        return outgoing[position];
+    }
+
+    /**
+     * @return The edges leaving the node whose relation matches, in their original order.
+     */
+    public int[] outgoingEdges(int node, RelationMatcher matcher) {
+        int from = outgoingOffsets[node], to = outgoingOffsets[node + 1];
+        int[] matching = new int[to - from];
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            if (matcher.matchesLabel(relations[outgoing[i]]))
+                matching[count++] = outgoing[i];
+        }
+
+        return count == matching.length ? matching : trim(matching, count);
+    }
+
+    /* distinct children, by position: childStart(node) <= i < childEnd(node) */
+
+    public int childStart(int node) {
+        return childOffsets[node];
+    }
+
+    public int childEnd(int node) {
+        return childOffsets[node + 1];
+    }
+
+    public int child(int position) {
+        return children[position];
+    }
+
+    /**
+     * @return The first edge from the parent to the child at the position.
+     */
+    public int childEdge(int position) {
+        return childEdges[childEdgeOffsets[position]];
+    }
+
+    /**
+     * @return Whether any of the edges from the parent to the child at the position matches.
+     */
+    public boolean childMatches(int position, RelationMatcher matcher) {
+        for (int i = childEdgeOffsets[position]; i < childEdgeOffsets[position + 1]; i++) {
+            if (matcher.matchesLabel(relations[childEdges[i]]))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The first edge to each child whose relation matches, ordered by child.
+     */
+    public int[] childEdges(int node, RelationMatcher matcher) {
+        int from = childOffsets[node], to = childOffsets[node + 1];
+        int[] matching = new int[to - from];
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            int edge = childEdge(i);
+            if (matcher.matchesLabel(relations[edge]))
+                matching[count++] = edge;
+        }
+
+        return count == matching.length ? matching : trim(matching, count);
+    }
+}
@@ -0,0 +1,35 @@
+package semantics.information;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The information extracted from a whole document, sentence by
+ * sentence in document order.
+ */
+public class DocumentInformation {
+    public final String text;
+    public final List<SentenceInformation> sentences;
+
+    DocumentInformation(String text, List<SentenceInformation> sentences) {
+        this.text = text;
+        this.sentences = sentences;
+    }
+
+    /**
+     * @return The paths of all the sentences in document order.
+     */
+    public List<InformationPath> paths() {
+        List<InformationPath> paths = new ArrayList<>();
+        sentences.forEach(sentence -> paths.addAll(sentence.paths));
+        return paths;
+    }
+
+    /**
+     * @param sentence A sentence of this document.
+     * @return The text of the sentence as it appears in the document.
+     */
+    public String sentenceText(SentenceInformation sentence) {
+        return text.substring(sentence.characterOffsetBegin, sentence.characterOffsetEnd);
+    }
+}
@@ -0,0 +1,211 @@
+package semantics.information;
+
+import edu.stanford.nlp.coref.data.CorefChain;
+import edu.stanford.nlp.ling.IndexedWord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Links the information paths of a whole document. Words are
+ * indexed document-wide by their (sentence, token) position, so
+ * a path can be linked to paths of other sentences:
+ * a) within a sentence, links follow the dependency relations, exactly
+ * like {@link InformationExtraction#linkPaths(List, CompactGraph)}
+ * b) across sentences, paths whose subjects or objects are mentions
+ * of the same co-reference chain are linked through the paths of the
+ * representative mention of the chain. These auxiliary links always
+ * go from the earlier sentence to the later one, so following links
+ * never loops back to an earlier sentence.
+ *
+ * Every path is indexed once, and the inter-path relations of a
+ * word are computed once no matter how many paths contain it, so
+ * linking is linear in the number of paths.
+ */
+public class DocumentLinker {
+    private static final int[] NO_LINKS = new int[0];
+
+    private final List<CompactGraph> graphs;
+    private final List<InformationPath> paths = new ArrayList<>();
+    private final int[] pathSentences;
+    private final int[][][] links; // sentence -> node -> linked children, computed on demand
+
+    private DocumentLinker(List<CompactGraph> graphs, List<List<InformationPath>> sentencePaths) {
+        this.graphs = graphs;
+        this.links = new int[graphs.size()][][];
+
+        for (List<InformationPath> sentence : sentencePaths)
+            paths.addAll(sentence);
+
+        pathSentences = new int[paths.size()];
+        int id = 0;
+        for (int sentence = 0; sentence < sentencePaths.size(); sentence++) {
+            for (int i = 0; i < sentencePaths.get(sentence).size(); i++)
+                pathSentences[id++] = sentence;
+        }
+    }
+
+    /**
+     * Links the paths of a document, within and across sentences.
+     * @param document The extracted information of a document.
+     * @param corefs The co-reference chains of the document (see
+     *               {@link edu.stanford.nlp.simple.Document#coref()}),
+     *               or null to only link within sentences.
+     */
+    public static void link(DocumentInformation document, Map<Integer, CorefChain> corefs) {
+        List<CompactGraph> graphs = new ArrayList<>(document.sentences.size());
+        List<List<InformationPath>> sentencePaths = new ArrayList<>(document.sentences.size());
+        for (SentenceInformation sentence : document.sentences) {
+            graphs.add(sentence.graph);
+            sentencePaths.add(sentence.paths);
+        }
+
+        DocumentLinker linker = new DocumentLinker(graphs, sentencePaths);
+        linker.linkDependencies();
+        if (corefs != null)
+            linker.linkCorefs(corefs);
+    }
+
+    /**
+     * Links the paths of a single sentence, see
+     * {@link InformationExtraction#linkPaths(List, CompactGraph)}.
+     */
+    static void link(List<InformationPath> paths, CompactGraph graph) {
+        new DocumentLinker(Collections.singletonList(graph), Collections.singletonList(paths)).linkDependencies();
+    }
+
+    /**
+     * @return The nodes reached from the word through an inter-path relation.
+     */
+    private int[] links(int sentence, IndexedWord word) {
+        CompactGraph graph = graphs.get(sentence);
+        int node = graph.node(word);
+        if (node < 0)
+            return NO_LINKS;
+
+        if (links[sentence] == null)
+            links[sentence] = new int[graph.size()][];
+
+        int[] nodeLinks = links[sentence][node];
+        if (nodeLinks == null) {
+            int[] children = new int[graph.childEnd(node) - graph.childStart(node)];
+            int count = 0;
+            for (int i = graph.childStart(node); i < graph.childEnd(node); i++) {
+                if (graph.childMatches(i, InformationPatterns.INTERPATH_RELATIONS))
+                    children[count++] = graph.child(i);
+            }
+
+            nodeLinks = count == 0 ? NO_LINKS : Arrays.copyOf(children, count);
+            links[sentence][node] = nodeLinks;
+        }
+
+        return nodeLinks;
+    }
+
+    private void linkDependencies() {
+        WordPathIndex words = new WordPathIndex(paths.size() * 4);
+        for (int id = 0; id < paths.size(); id++) {
+            InformationPath path = paths.get(id);
+            int sentence = pathSentences[id];
+
+            words.add(WordPathIndex.key(sentence, path.predicate.getRepresentative().index()), id);
+            if (path.object != null) {
+                for (IndexedWord objectWord : path.object)
+                    words.add(WordPathIndex.key(sentence, objectWord.index()), id);
+            }
+        }
+
+        for (int id = 0; id < paths.size(); id++) {
+            InformationPath path = paths.get(id);
+            int sentence = pathSentences[id];
+
+            addLinks(words, id, sentence, links(sentence, path.predicate.getRepresentative()), path.objectPaths);
+
+            if (path.object != null) {
+                for (IndexedWord objectWord : path.object)
+                    addLinks(words, id, sentence, links(sentence, objectWord), path.auxPaths);
+            }
+        }
+    }
+
+    private void addLinks(WordPathIndex words, int id, int sentence, int[] nodes, List<InformationPath> linked) {
+        CompactGraph graph = graphs.get(sentence);
+        for (int node : nodes) {
+            long key = WordPathIndex.key(sentence, graph.word(node).index());
+            for (int entry = words.first(key); entry != -1; entry = words.next(entry)) {
+                if (words.path(entry) != id) // just being careful not to make a path reference itself
+                    linked.add(paths.get(words.path(entry)));
+            }
+        }
+    }
+
+    private void linkCorefs(Map<Integer, CorefChain> corefs) {
+        // the paths a word is the subject or the object of
+        WordPathIndex mentions = new WordPathIndex(paths.size() * 4);
+        for (int id = 0; id < paths.size(); id++) {
+            InformationPath path = paths.get(id);
+            int sentence = pathSentences[id];
+
+            if (path.subject != null) {
+                for (IndexedWord word : path.subject)
+                    mentions.add(WordPathIndex.key(sentence, word.index()), id);
+            }
+            if (path.object != null) {
+                for (IndexedWord word : path.object)
+                    mentions.add(WordPathIndex.key(sentence, word.index()), id);
+            }
+        }
+
+        for (CorefChain chain : corefs.values()) {
+            List<CorefChain.CorefMention> chainMentions = new ArrayList<>();
+            CorefChain.CorefMention representative = chain.getRepresentativeMention();
+            if (representative != null)
+                chainMentions.add(representative);
+            chainMentions.addAll(chain.getMentionsInTextualOrder());
+
+            // the representative mention anchors the chain, or the first one with paths if it has none
+            long anchor = -1;
+            for (CorefChain.CorefMention mention : chainMentions) {
+                long key = mentionKey(mention);
+                if (mentions.first(key) != -1) {
+                    anchor = key;
+                    break;
+                }
+            }
+            if (anchor == -1)
+                continue;
+
+            for (CorefChain.CorefMention mention : chain.getMentionsInTextualOrder()) {
+                long key = mentionKey(mention);
+                if (key == anchor || sentenceOf(key) == sentenceOf(anchor))
+                    continue;
+
+                // links across sentences always point forward, so they never make a cycle
+                long earlier = sentenceOf(key) < sentenceOf(anchor) ? key : anchor;
+                long later = earlier == key ? anchor : key;
+
+                for (int entry = mentions.first(earlier); entry != -1; entry = mentions.next(entry)) {
+                    for (int other = mentions.first(later); other != -1; other = mentions.next(other))
+                        linkAuxiliary(paths.get(mentions.path(entry)), paths.get(mentions.path(other)));
+                }
+            }
+        }
+    }
+
+    private static long mentionKey(CorefChain.CorefMention mention) {
+        // mentions count sentences from 1, tokens are counted from 1 like IndexedWord.index()
+        return WordPathIndex.key(mention.sentNum - 1, mention.headIndex);
+    }
+
+    private static int sentenceOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static void linkAuxiliary(InformationPath path, InformationPath linked) {
+        if (path != linked && !path.auxPaths.contains(linked))
+            path.auxPaths.add(linked);
+    }
+}
@@ -0,0 +1,134 @@
+package semantics.information;
+
+import edu.stanford.nlp.ling.IndexedWord;
+
+import java.util.List;
+
+/**
+ * A single compiled extraction rule, e.g.
+ * <pre>
+ *     [subject] >appos|acl [predicate tag!~VB] => subject
+ * </pre>
+ * An edge matches the rule if its relation contains any of the
+ * relation fragments (like {@link RelationMatcher}, though the
+ * fragments belong to the rule only), and its
+ * governor and dependent pass the constraints of their brackets.
+ * The brackets name the role each end of the edge plays for the
+ * action, see {@link ExtractionPatterns} for the syntax.
+ */
+public final class ExtractionPattern {
+    public enum Role {
+        SUBJECT, PREDICATE, OBJECT
+    }
+
+    /**
+     * What a matched edge extracts. Each action needs its
+     * two roles to be bound by the pattern.
+     */
+    public enum Action {
+        /**
+         * The subject of a predicate; objects are searched from the predicate.
+         */
+        SUBJECT(Role.SUBJECT, Role.PREDICATE),
+        /**
+         * The object of a predicate; subjects are searched from the predicate.
+         */
+        OBJECT(Role.OBJECT, Role.PREDICATE),
+        /**
+         * A predicate and its complement as the object, without a subject.
+         */
+        COMPLEMENT(Role.PREDICATE, Role.OBJECT);
+
+        final Role first;
+        final Role second;
+
+        Action(Role first, Role second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * One end of the edge: its role and the constraints on its word.
+     */
+    static final class Node {
+        final Role role;
+        final List<String> tagContains;
+        final List<String> tagExcludes;
+
+        Node(Role role, List<String> tagContains, List<String> tagExcludes) {
+            this.role = role;
+            this.tagContains = tagContains;
+            this.tagExcludes = tagExcludes;
+        }
+
+        boolean accepts(IndexedWord word) {
+            if (tagContains.isEmpty() && tagExcludes.isEmpty())
+                return true;
+
+            String tag = word.tag();
+            for (String value : tagContains) {
+                if (tag == null || !tag.contains(value))
+                    return false;
+            }
+            for (String value : tagExcludes) {
+                if (tag != null && tag.contains(value))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private final Node governor;
+    private final List<String> relations;
+    private final Node dependent;
+    private final Action action;
+    private final String source;
+
+    ExtractionPattern(Node governor, List<String> relations, Node dependent, Action action, String source) {
+        this.governor = governor;
+        this.relations = relations;
+        this.dependent = dependent;
+        this.action = action;
+        this.source = source;
+    }
+
+    /**
+     * @param relation The short name of a relation.
+     * @return Whether the relation contains any of the fragments of the rule.
+     */
+    boolean matchesRelation(String relation) {
+        for (String fragment : relations) {
+            if (relation.contains(fragment))
+                return true;
+        }
+        return false;
+    }
+
+    public Action action() {
+        return action;
+    }
+
+    /**
+     * Checks the constraints on the ends of an edge whose
+     * relation is already known to match.
+     */
+    boolean accepts(CompactGraph graph, int edge) {
+        return governor.accepts(graph.word(graph.governor(edge))) &&
+                dependent.accepts(graph.word(graph.dependent(edge)));
+    }
+
+    /**
+     * @return The node playing the role in a matched edge.
+     */
+    public int node(CompactGraph graph, int edge, Role role) {
+        return governor.role == role ?
+                graph.governor(edge) :
+                graph.dependent(edge);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,244 @@
+package semantics.information;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled set of extraction rules, evaluated together in a single
+ * pass over the edges of a graph. One rule per line:
+ * <pre>
+ *     # comments and blank lines are ignored
+ *     [predicate] >subj [subject] => subject
+ *     [subject] >appos|acl [predicate] => subject
+ *     [predicate tag~VB] >xcomp [object tag!~VB] => complement
+ * </pre>
+ * The governor of the edge comes first, then the relation fragments
+ * (any of them matches, like {@link RelationMatcher}), then the
+ * dependent. Each bracket names the role of its word (subject,
+ * predicate, or object) and may constrain its part-of-speech tag
+ * with tag~X (contains X) or tag!~X (doesn't contain X). The roles
+ * must be the ones the action needs, see {@link ExtractionPattern.Action}.
+ *
+ * Rules are listed by priority. Only the first edge of each governor
+ * matching any rule extracts anything, through the first rule (in
+ * order) it matches.
+ *
+ * The fragments of the rules belong to the compiled instance, so any
+ * number of rule sets can be loaded at runtime. Rules only decide
+ * which edges start a path and which roles the ends of the edge play;
+ * the searches from there (the objects or subjects of the predicate,
+ * compounds, modifiers and auxiliary information) are still the ones
+ * of {@link InformationExtraction}, and can't be changed by rules.
+ */
+public final class ExtractionPatterns {
+    public final static String DEFAULT_RESOURCE = "/semantics/information/patterns.txt";
+
+    private final static Pattern RULE = Pattern.compile("\\[([^\\]]+)]\\s*>\\s*([^\\s\\[]+)\\s*\\[([^\\]]+)]\\s*=>\\s*(\\w+)");
+    private final static int MAX_RULES = Long.SIZE - 1;
+    private final static long COMPUTED = Long.MIN_VALUE;
+
+    private static volatile ExtractionPatterns defaults;
+
+    private final List<ExtractionPattern> patterns;
+    // relation label -> the rules whose relations it matches, COMPUTED once filled in
+    private volatile long[] candidates = new long[64];
+
+    /**
+     * Receives the edges matched by {@link #match(CompactGraph, IMatchListener)}.
+     */
+    @FunctionalInterface
+    public interface IMatchListener {
+        void matched(int edge, ExtractionPattern pattern);
+    }
+
+    private ExtractionPatterns(List<ExtractionPattern> patterns) {
+        this.patterns = Collections.unmodifiableList(patterns);
+    }
+
+    /**
+     * @return The rules shipped in {@link #DEFAULT_RESOURCE}.
+     */
+    public static ExtractionPatterns defaults() {
+        if (defaults == null) {
+            synchronized (ExtractionPatterns.class) {
+                if (defaults == null)
+                    defaults = load(DEFAULT_RESOURCE);
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * @param resource The path of a rules file on the class path.
+     * @return The compiled rules.
+     */
+    public static ExtractionPatterns load(String resource) {
+        InputStream stream = ExtractionPatterns.class.getResourceAsStream(resource);
+        if (stream == null)
+            throw new IllegalArgumentException("No extraction patterns found at " + resource);
+
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public static ExtractionPatterns parse(String rules) {
+        try {
+            return parse(new StringReader(rules));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // can't happen with a string
+        }
+    }
+
+    public static ExtractionPatterns parse(Reader rules) throws IOException {
+        BufferedReader reader = new BufferedReader(rules);
+        List<ExtractionPattern> patterns = new ArrayList<>();
+        String line;
+        int number = 0;
+
+        while ((line = reader.readLine()) != null) {
+            number++;
+            int comment = line.indexOf('#');
+            String rule = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (rule.isEmpty())
+                continue;
+
+            if (patterns.size() == MAX_RULES)
+                throw new IllegalArgumentException("line " + number + ": no more than " + MAX_RULES + " rules are supported");
+            patterns.add(compile(rule, number));
+        }
+
+        return new ExtractionPatterns(patterns);
+    }
+
+    private static ExtractionPattern compile(String rule, int number) {
+        Matcher matcher = RULE.matcher(rule);
+        if (!matcher.matches())
+            throw new IllegalArgumentException("line " + number + ": expected '[role] >relation|... [role] => action' but got '" + rule + "'");
+
+        ExtractionPattern.Node governor = node(matcher.group(1), number);
+        ExtractionPattern.Node dependent = node(matcher.group(3), number);
+        List<String> relations = Arrays.asList(matcher.group(2).split("\\|"));
+        if (relations.contains(""))
+            throw new IllegalArgumentException("line " + number + ": empty relation in '" + matcher.group(2) + "'");
+
+        ExtractionPattern.Action action;
+        try {
+            action = ExtractionPattern.Action.valueOf(matcher.group(4).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("line " + number + ": unknown action '" + matcher.group(4) + "'");
+        }
+
+        if (!EnumSet.of(governor.role, dependent.role).equals(EnumSet.of(action.first, action.second)))
+            throw new IllegalArgumentException("line " + number + ": " + action.name().toLowerCase(Locale.ROOT) +
+                    " needs a " + action.first.name().toLowerCase(Locale.ROOT) +
+                    " and a " + action.second.name().toLowerCase(Locale.ROOT));
+
+        return new ExtractionPattern(governor, relations, dependent, action, rule);
+    }
+
+    private static ExtractionPattern.Node node(String bracket, int number) {
+        String[] parts = bracket.trim().split("\\s+");
+        ExtractionPattern.Role role;
+        try {
+            role = ExtractionPattern.Role.valueOf(parts[0].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("line " + number + ": unknown role '" + parts[0] + "'");
+        }
+
+        List<String> tagContains = new ArrayList<>();
+        List<String> tagExcludes = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].startsWith("tag!~"))
+                tagExcludes.add(parts[i].substring("tag!~".length()));
+            else if (parts[i].startsWith("tag~"))
+                tagContains.add(parts[i].substring("tag~".length()));
+            else
+                throw new IllegalArgumentException("line " + number + ": unknown constraint '" + parts[i] + "'");
+        }
+
+        return new ExtractionPattern.Node(role, tagContains, tagExcludes);
+    }
+
+    public List<ExtractionPattern> patterns() {
+        return patterns;
+    }
+
+    /**
+     * The transition table of the matcher: which rules a relation
+     * label could trigger, computed once per label.
+     */
+    private long candidates(int label) {
+        long[] table = candidates;
+        if (label < table.length && table[label] != 0)
+            return table[label];
+
+        String relation = RelationMatcher.name(label);
+        long rules = COMPUTED;
+        for (int rule = 0; rule < patterns.size(); rule++) {
+            if (patterns.get(rule).matchesRelation(relation))
+                rules |= 1L << rule;
+        }
+
+        if (label >= table.length) {
+            synchronized (this) {
+                table = candidates;
+                if (label >= table.length) {
+                    table = Arrays.copyOf(table, Math.max(label + 1, table.length * 2));
+                    candidates = table;
+                }
+            }
+        }
+        table[label] = rules; // losing this to a concurrent resize only means computing it again
+        return rules;
+    }
+
+    /**
+     * Runs all the rules over the edges of a graph in one pass, in edge
+     * order. Each governor is matched at most once, by its first edge
+     * matching any rule, through the first rule that edge matches.
+     * @param graph The graph of a sentence.
+     * @param listener Receives every matched edge and the rule it matched.
+     */
+    public void match(CompactGraph graph, IMatchListener listener) {
+        BitSet matchedGovernors = new BitSet();
+
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            long rules = candidates(graph.relation(edge)) & ~COMPUTED;
+            if (rules == 0)
+                continue;
+
+            int governor = graph.word(graph.governor(edge)).index();
+            if (matchedGovernors.get(governor))
+                continue;
+
+            while (rules != 0) {
+                ExtractionPattern pattern = patterns.get(Long.numberOfTrailingZeros(rules));
+                rules &= rules - 1;
+
+                if (pattern.accepts(graph, edge)) {
+                    matchedGovernors.set(governor);
+                    listener.matched(edge, pattern);
+                    break;
+                }
+            }
+        }
+    }
+}
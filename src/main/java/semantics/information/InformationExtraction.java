@@ -2,9 +2,9 @@ package semantics.information;
 
 import edu.stanford.nlp.ling.IndexedWord;
 import edu.stanford.nlp.semgraph.SemanticGraph;
-import edu.stanford.nlp.semgraph.SemanticGraphEdge;
 import edu.stanford.nlp.simple.Sentence;
 import edu.stanford.nlp.simple.Token;
+import edu.stanford.nlp.trees.GrammaticalRelation;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -20,9 +20,9 @@ public class InformationExtraction {
      * @return
      */
     @Deprecated
-    private static boolean isTruePredicate(SemanticGraph graph, IndexedWord predicateWord) {
-        return !(predicateWord.tag().contains("NN") ||
-                SemanticGraphUtil.findOutgoingEdges(graph, predicateWord, InformationPatterns.COP_RELATIONS).size() != 0);
+    private static boolean isTruePredicate(CompactGraph graph, int predicateWord) {
+        return !(graph.word(predicateWord).tag().contains("NN") ||
+                SemanticGraphUtil.findOutgoingEdges(graph, predicateWord, InformationPatterns.COP_RELATIONS).length != 0);
     }
 
     /**
@@ -33,11 +33,8 @@ public class InformationExtraction {
      * @param predicate
      * @return
      */
-    private static List<SemanticGraphEdge> findDirectObjects(SemanticGraph graph, IndexedWord predicate) {
-        return graph.getChildList(predicate).stream()
-                .map(child -> graph.getEdge(predicate, child))
-                .filter(edge -> InformationUtil.containsAny(edge.getRelation().getShortName(), InformationPatterns.DIRECT_OBJECT_RELATIONS))
-                .collect(Collectors.toList());
+    private static int[] findDirectObjects(CompactGraph graph, int predicate) {
+        return graph.childEdges(predicate, InformationPatterns.DIRECT_OBJECT_RELATIONS);
     }
 
     /**
@@ -48,37 +45,8 @@ public class InformationExtraction {
      * @param predicate
      * @return
      */
-    private static List<SemanticGraphEdge> findDirectSubjects(SemanticGraph graph, IndexedWord predicate) {
-        return graph.getChildList(predicate).stream()
-                .map(child -> graph.getEdge(predicate, child))
-                .filter(edge -> edge.getRelation().getShortName().contains(InformationPatterns.SUBJECT_RELATION))
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Finds all edges where a predicate is present. An edge could
-     * represent a subject relation or an object relation.
-     * @param graph
-     * @return
-     */
-    private static List<SemanticGraphEdge> findPredicateEdges(SemanticGraph graph) {
-        List<SemanticGraphEdge> edges = new LinkedList<>();
-        Set<Integer> foundPredicates = new HashSet<>();
-
-        for (SemanticGraphEdge edge : graph.edgeIterable()) {
-            String relationName = edge.getRelation().getShortName();
-
-            if (InformationUtil.containsAny(relationName, InformationPatterns.SUBJECT_OBJECT)) {
-                IndexedWord predicate = edge.getGovernor();
-
-                if (!foundPredicates.contains(predicate.index())) {
-                    edges.add(edge);
-                    foundPredicates.add(predicate.index());
-                }
-            }
-        }
-
-        return edges;
+    private static int[] findDirectSubjects(CompactGraph graph, int predicate) {
+        return graph.childEdges(predicate, InformationPatterns.SUBJECT_RELATION);
     }
 
     /**
@@ -90,24 +58,24 @@ public class InformationExtraction {
      * more information about it.
      * @param graph
      * @param predicate
-     * @param contains
+     * @param relations
      * @return
      */
-    private static List<AuxiliaryInformation> findAuxiliaryInformation(SemanticGraph graph, IndexedWord predicate,
-                                                                       List<String> contains)
+    private static List<AuxiliaryInformation> findAuxiliaryInformation(CompactGraph graph, int predicate,
+                                                                       RelationMatcher relations)
     {
-        List<SemanticGraphEdge> relatedWords = SemanticGraphUtil.findOutgoingEdges(graph, predicate, contains);
-        List<AuxiliaryInformation> information = new ArrayList<>();
+        int[] relatedWords = SemanticGraphUtil.findOutgoingEdges(graph, predicate, relations);
+        List<AuxiliaryInformation> information = new ArrayList<>(relatedWords.length);
 
-        // TODO: replace this with a map call
-        relatedWords.forEach(edge -> {
-            IndexedWord word = edge.getDependent();
+        for (int edge : relatedWords) {
+            int word = graph.dependent(edge);
             List<IndexedWord> compound = SemanticGraphUtil.findCompounds(graph, word);
             compound.addAll(SemanticGraphUtil.findMods(graph, word, compound));
 
-            String type = edge.getRelation().getSpecific() != null ? edge.getRelation().getSpecific() : edge.getRelation().getShortName();
+            GrammaticalRelation relation = graph.edge(edge).getRelation();
+            String type = relation.getSpecific() != null ? relation.getSpecific() : relation.getShortName();
             information.add(new AuxiliaryInformation(type, compound));
-        });
+        }
 
         return information;
     }
@@ -116,27 +84,27 @@ public class InformationExtraction {
      * Creates a full predicate from a single word. A full predicate
      * contains: parts (e.g. "Check out"; "out" is part of the predicate),
      * and auxiliary information (see
-     * {@link #findAuxiliaryInformation(SemanticGraph, IndexedWord, List) findAuxiliaryInformation}).
+     * {@link #findAuxiliaryInformation(CompactGraph, int, RelationMatcher) findAuxiliaryInformation}).
      * @param graph
      * @param word
      * @return
      */
-    private static Predicate predicateFromWord(SemanticGraph graph, IndexedWord word) {
-        return new Predicate(word, SemanticGraphUtil.findUp(graph, word, InformationPatterns.PREDICATE_PARTS /*COMPOUND_ONLY*/),
+    private static Predicate predicateFromWord(CompactGraph graph, int word) {
+        return new Predicate(graph.word(word), SemanticGraphUtil.findUp(graph, word, InformationPatterns.PREDICATE_PARTS /*COMPOUND_ONLY*/),
                 findAuxiliaryInformation(graph, word, InformationPatterns.PREDICATE_AUX));
     }
 
-    private static List<AuxiliaryInformation> casesFromWord(SemanticGraph graph, IndexedWord word) {
+    private static List<AuxiliaryInformation> casesFromWord(CompactGraph graph, int word) {
         return findAuxiliaryInformation(graph, word, InformationPatterns.CASE_RELATIONS);
     }
 
-    private static InformationPath expandPathWithObject(SemanticGraph graph, SemanticGraphEdge objectRelation,
+    private static InformationPath expandPathWithObject(CompactGraph graph, int objectRelation,
                                                  final InformationPath originalPath)
     {
         InformationPath clonedInformation = originalPath.clone();
 
         // this is only the last word in the object words
-        IndexedWord directObject = objectRelation.getDependent();
+        int directObject = graph.dependent(objectRelation);
 
         // find the rest of the words of this object
         clonedInformation.object = SemanticGraphUtil.findCompounds(graph, directObject);
@@ -152,15 +120,15 @@ public class InformationExtraction {
         return clonedInformation;
     }
 
-    private static InformationPath expandBranchesWithObject(SemanticGraph graph, InformationPath originalPath) {
-        IndexedWord object = originalPath.object.get(originalPath.object.size()-1);
+    private static InformationPath expandBranchesWithObject(CompactGraph graph, InformationPath originalPath) {
+        int object = graph.node(originalPath.object.get(originalPath.object.size()-1));
         originalPath.predicate.getAuxiliaryBranches().addAll(findAuxiliaryInformation(graph, object,
                 InformationPatterns.NMOD_RELATION));
         return originalPath;
     }
 
-    private static List<InformationPath> findSubjectPaths(SemanticGraph graph, IndexedWord directSubject,
-                                                              IndexedWord directPredicate)
+    private static List<InformationPath> findSubjectPaths(CompactGraph graph, int directSubject,
+                                                              int directPredicate)
     {
         List<InformationPath> paths = new ArrayList<>();
         Predicate compoundPredicate = predicateFromWord(graph, directPredicate);
@@ -172,19 +140,18 @@ public class InformationExtraction {
         information.subject = compoundSubject;
         information.predicate = compoundPredicate;
 
-        List<SemanticGraphEdge> directObjectRelations = findDirectObjects(graph, directPredicate);
-        List<SemanticGraphEdge> indirectObjectEdges = SemanticGraphUtil.findOutgoingEdges(graph, directPredicate,
-                Collections.singletonList("iobj"));
+        int[] directObjectRelations = findDirectObjects(graph, directPredicate);
+        int[] indirectObjectEdges = SemanticGraphUtil.findOutgoingEdges(graph, directPredicate,
+                InformationPatterns.INDIRECT_OBJECT_RELATIONS);
 
-        information.secondaryObject.addAll(indirectObjectEdges.stream()
-                .map(SemanticGraphEdge::getDependent).collect(Collectors.toList()));
+        for (int edge : indirectObjectEdges)
+            information.secondaryObject.add(graph.word(graph.dependent(edge)));
 
-        if (directObjectRelations.size() > 0) {
-            paths.addAll(directObjectRelations.stream()
-                    .map(directObjectRelation -> expandPathWithObject(graph, directObjectRelation, information))
-                    .map(path -> expandBranchesWithObject(graph, path)) // is this needed?
-                    .collect(Collectors.toList())
-            );
+        if (directObjectRelations.length > 0) {
+            for (int directObjectRelation : directObjectRelations) {
+                InformationPath path = expandPathWithObject(graph, directObjectRelation, information);
+                paths.add(expandBranchesWithObject(graph, path)); // is this needed?
+            }
         }
         else {
             List<AuxiliaryInformation> branches = information.predicate.getAuxiliaryBranches();
@@ -214,7 +181,7 @@ public class InformationExtraction {
 
                 clonedInformation.predicate.getAuxiliaryBranches().remove(branch);
                 clonedInformation.predicate.getAuxiliaryBranches().addAll(
-                        casesFromWord(graph, branch.getWords().get(branch.getWords().size() - 1))
+                        casesFromWord(graph, graph.node(branch.getWords().get(branch.getWords().size() - 1)))
                 );
 
                 paths.add(clonedInformation);
@@ -227,8 +194,8 @@ public class InformationExtraction {
         return paths;
     }
 
-    private static List<InformationPath> findObjectPaths(SemanticGraph graph, IndexedWord directObject,
-                                                         IndexedWord directPredicate)
+    private static List<InformationPath> findObjectPaths(CompactGraph graph, int directObject,
+                                                         int directPredicate)
     {
         List<InformationPath> paths = new ArrayList<>();
         Predicate compoundPredicate = predicateFromWord(graph, directPredicate);
@@ -241,24 +208,21 @@ public class InformationExtraction {
 
         information.predicate = compoundPredicate;
 
-        List<SemanticGraphEdge> directSubjectRelations = findDirectSubjects(graph, directPredicate);
+        int[] directSubjectRelations = findDirectSubjects(graph, directPredicate);
 
-        if (directSubjectRelations.size() > 0) {
-            paths.addAll(directSubjectRelations.stream()
-                    .map(directSubjectRelation -> {
-                        InformationPath clonedInformation = information.clone();
+        if (directSubjectRelations.length > 0) {
+            for (int directSubjectRelation : directSubjectRelations) {
+                InformationPath clonedInformation = information.clone();
 
-                        // this is only the last word in the object words
-                        IndexedWord directSubject = directSubjectRelation.getDependent();
+                // this is only the last word in the object words
+                int directSubject = graph.dependent(directSubjectRelation);
 
-                        // find the rest of the words of this object
-                        clonedInformation.subject = SemanticGraphUtil.findCompounds(graph, directSubject);
-                        clonedInformation.subject.addAll(SemanticGraphUtil.findMods(graph, directSubject, clonedInformation.subject));
+                // find the rest of the words of this object
+                clonedInformation.subject = SemanticGraphUtil.findCompounds(graph, directSubject);
+                clonedInformation.subject.addAll(SemanticGraphUtil.findMods(graph, directSubject, clonedInformation.subject));
 
-                        return clonedInformation;
-                    })
-                    .collect(Collectors.toList())
-            );
+                paths.add(clonedInformation);
+            }
         }
         else {
             paths.add(information);
@@ -268,49 +232,45 @@ public class InformationExtraction {
     }
 
     /**
-     * TODO: This function is 1) too long, 2) very similar to findPathsfromApposEdge.
-     * Finds information paths from a subject relation edge. In other
-     * words, given a subject relation, it finds all possible objects
-     * and creates an information path for each.
-     * @param edge
+     * Finds a path made of a predicate and its complement as the
+     * object, e.g. "wants peace" in "He wants peace".
      * @param graph
+     * @param predicate
+     * @param complement
      * @return
      */
-    private static List<InformationPath> findPathsFromSubjectEdge(SemanticGraphEdge edge, SemanticGraph graph) {
-        IndexedWord directSubject = edge.getDependent();
-        IndexedWord directPredicate = edge.getGovernor();
-
-        return findSubjectPaths(graph, directSubject, directPredicate);
+    private static List<InformationPath> findComplementPaths(CompactGraph graph, int predicate, int complement) {
+        InformationPath compPath = new InformationPath();
+        compPath.predicate = predicateFromWord(graph, predicate);
+        compPath.object = SemanticGraphUtil.findCompounds(graph, complement);
+        return Collections.singletonList(compPath);
     }
 
     /**
-     * Finds information paths from an object relation edge. In other
-     * words, given an object relation, it finds all possible subjects
-     * and creates an information path for each.
-     * @param edge
+     * Finds the information paths of an edge matched by an extraction
+     * rule, according to the action of the rule.
      * @param graph
-     * @return
-     */
-    private static List<InformationPath> findPathsFromObjectEdge(SemanticGraphEdge edge, SemanticGraph graph) {
-        IndexedWord directObject = edge.getDependent();
-        IndexedWord directPredicate = edge.getGovernor();
-
-        return findObjectPaths(graph, directObject, directPredicate);
-    }
-
-    /**
-     * TODO: This function is 1) too long, 2) very similar to findPathsfromSubjectEdge.
-     * Works exactly like {@link #findPathsFromSubjectEdge(SemanticGraphEdge, SemanticGraph)}
-     * but the subject is the governor, and the predicate is the dependant.
      * @param edge
-     * @param graph
+     * @param pattern
      * @return
      */
-    private static List<InformationPath> findPathsFromApposAclEdges(SemanticGraphEdge edge, SemanticGraph graph) {
-        IndexedWord directSubject = edge.getGovernor();
-        IndexedWord directPredicate = edge.getDependent();
-
-        return findSubjectPaths(graph, directSubject, directPredicate);
+    private static List<InformationPath> findPathsFromMatch(CompactGraph graph, int edge, ExtractionPattern pattern) {
+        switch (pattern.action()) {
+            case SUBJECT:
+                return findSubjectPaths(graph,
+                        pattern.node(graph, edge, ExtractionPattern.Role.SUBJECT),
+                        pattern.node(graph, edge, ExtractionPattern.Role.PREDICATE));
+            case OBJECT:
+                return findObjectPaths(graph,
+                        pattern.node(graph, edge, ExtractionPattern.Role.OBJECT),
+                        pattern.node(graph, edge, ExtractionPattern.Role.PREDICATE));
+            case COMPLEMENT:
+                return findComplementPaths(graph,
+                        pattern.node(graph, edge, ExtractionPattern.Role.PREDICATE),
+                        pattern.node(graph, edge, ExtractionPattern.Role.OBJECT));
+            default:
+                throw new IllegalStateException("Unknown action " + pattern.action());
+        }
     }
 
     @Deprecated
@@ -344,47 +304,31 @@ public class InformationExtraction {
      * @return
      */
     public static List<InformationPath> findSimpleInformationPaths(SemanticGraph graph) {
-        List<InformationPath> paths = new ArrayList<>();
-        List<SemanticGraphEdge> predicateEdges = findPredicateEdges(graph);
-
-        predicateEdges.forEach(edge -> {
-            if (edge.getRelation().getShortName().contains("subj")) {
-                paths.addAll(findPathsFromSubjectEdge(edge, graph));
-            }
-            else if (edge.getRelation().getShortName().contains("dobj")) {
-                paths.addAll(findPathsFromObjectEdge(edge, graph));
-            }
-            else if (edge.getRelation().getShortName().contains("appos")) {
-                paths.addAll(findPathsFromApposAclEdges(edge, graph));
-            }
-            else if (edge.getRelation().getShortName().contains("acl")) {
-                paths.addAll(findPathsFromApposAclEdges(edge, graph));
-            }/**/
-            // TODO: Should this part be totally removed?
-            /*else if (edge.getRelation().getShortName().contains("xcomp")) {
-                if (edge.getGovernor().tag().contains("VB") &&
-                        !edge.getDependent().tag().contains("VB"))
-                {
-                    InformationPath compPath = new InformationPath();
-                    compPath.predicate = predicateFromWord(graph, edge.getGovernor());
-                    compPath.object = SemanticGraphUtil.findCompounds(graph, edge.getDependent());
-                    paths.add(compPath);
-                }
-            }*/
-        });
+        return findSimpleInformationPaths(CompactGraph.of(graph));
+    }
 
-        return paths;
+    /**
+     * Finds simple (non-linked) information paths from the compact
+     * graph of a sentence, see {@link #findSimpleInformationPaths(SemanticGraph)}.
+     * @param graph
+     * @return
+     */
+    public static List<InformationPath> findSimpleInformationPaths(CompactGraph graph) {
+        return findSimpleInformationPaths(graph, ExtractionPatterns.defaults());
     }
 
-    private static List<IndexedWord> compRelations(IndexedWord source, SemanticGraph graph) {
-        List<IndexedWord> children = graph.getChildList(source);
-        return children.stream()
-                .filter(child -> graph.getAllEdges(source, child).stream()
-                            .filter(edge -> InformationUtil.containsAny(edge.getRelation().getShortName(),
-                                    InformationPatterns.INTERPATH_RELATIONS))
-                            .collect(Collectors.toList())
-                            .size() > 0
-                ).collect(Collectors.toList());
+    /**
+     * Finds simple (non-linked) information paths from the compact
+     * graph of a sentence using the given extraction rules instead
+     * of the default ones.
+     * @param graph
+     * @param patterns
+     * @return
+     */
+    public static List<InformationPath> findSimpleInformationPaths(CompactGraph graph, ExtractionPatterns patterns) {
+        List<InformationPath> paths = new ArrayList<>();
+        patterns.match(graph, (edge, pattern) -> paths.addAll(findPathsFromMatch(graph, edge, pattern)));
+        return paths;
     }
 
     /**
@@ -397,48 +341,16 @@ public class InformationExtraction {
      * @param graph
      */
     public static void linkPaths(List<InformationPath> paths, SemanticGraph graph) {
-        Map<Integer, List<InformationPath>> wordsPaths = new HashMap<>();
-        for (InformationPath path : paths) {
-            wordsPaths.putIfAbsent(path.predicate.getRepresentative().index(), new ArrayList<>());
-            List<InformationPath> predPathsList = wordsPaths.get(path.predicate.getRepresentative().index());
-
-            predPathsList.add(path);
-            if (path.object != null) {
-                path.object.forEach(objectWord -> {
-                    wordsPaths.putIfAbsent(objectWord.index(), new ArrayList<>());
-                    List<InformationPath> objPathsList = wordsPaths.get(objectWord.index());
-
-                    objPathsList.add(path);
-                });
-            }
-        }
-
-        for (InformationPath path : paths) {
-            IndexedWord predicateRepresentative = path.predicate.getRepresentative();
-            List<IndexedWord> predicateLinks = compRelations(predicateRepresentative, graph);
-
-            predicateLinks.forEach(link -> {
-                List<InformationPath> linkedPaths = wordsPaths.get(link.index());
-
-                if (linkedPaths != null)
-                    path.objectPaths.addAll(linkedPaths.stream()
-                            .filter(linkedPath -> linkedPath != path) // just being careful not to make a path reference itself
-                            .collect(Collectors.toList()));
-            });
-
-            if (path.object != null) {
-                List<IndexedWord> objectLinks = new ArrayList<>();
-                path.object.forEach(objectWord -> objectLinks.addAll(compRelations(objectWord, graph)));
-
-                objectLinks.forEach(link -> {
-                    List<InformationPath> linkedPaths = wordsPaths.get(link.index());
+        linkPaths(paths, CompactGraph.of(graph));
+    }
 
-                    if (linkedPaths != null)
-                        path.auxPaths.addAll(linkedPaths.stream()
-                                .filter(linkedPath -> linkedPath != path) // just being careful not to make a path reference itself
-                                .collect(Collectors.toList()));
-                });
-            }
-        }
+    /**
+     * Finds possible links between disjoint information paths, see
+     * {@link #linkPaths(List, SemanticGraph)}.
+     * @param paths
+     * @param graph The compact graph the paths were found in.
+     */
+    public static void linkPaths(List<InformationPath> paths, CompactGraph graph) {
+        DocumentLinker.link(paths, graph);
     }
-} 
+}
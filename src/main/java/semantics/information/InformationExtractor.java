@@ -0,0 +1,219 @@
+package semantics.information;
+
+import edu.stanford.nlp.coref.data.CorefChain;
+import edu.stanford.nlp.semgraph.SemanticGraphFactory;
+import edu.stanford.nlp.simple.Document;
+import edu.stanford.nlp.simple.Sentence;
+import semantics.BatchExecutor;
+import semantics.IBatchListener;
+import semantics.SpoTuple;
+import semantics.SyntacticFeatures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Extracts information paths from whole documents. Each document
+ * is parsed once; the dependency graphs (and OpenIE relations and
+ * co-reference chains, if requested) of all its sentences are read
+ * from that parse, then the paths of the sentences are extracted in
+ * parallel and linked across the whole document by {@link DocumentLinker}.
+ * Batches of documents are processed by a pool of workers, like
+ * {@link semantics.DocumentProcessor#processDocuments(Iterable)}.
+ */
+public class InformationExtractor {
+    private SemanticGraphFactory.Mode mode = SemanticGraphFactory.Mode.ENHANCED;
+    private boolean relations;
+    private boolean corefs;
+    private double minConfidence = 0.5;
+    private int parallelSentences = 2;
+    private ExtractionPatterns patterns = ExtractionPatterns.defaults();
+
+    /* batch processing */
+    private final BatchExecutor batches = new BatchExecutor("information-extractor");
+
+    /**
+     * Sets the kind of dependency graph paths are extracted from.
+     * @param mode The dependencies mode, ENHANCED by default.
+     * @return This extractor.
+     */
+    public InformationExtractor setMode(SemanticGraphFactory.Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * Sets the rules paths are extracted with.
+     * @param patterns The rules, {@link ExtractionPatterns#defaults()} by default.
+     * @return This extractor.
+     */
+    public InformationExtractor setPatterns(ExtractionPatterns patterns) {
+        this.patterns = patterns;
+        return this;
+    }
+
+    /**
+     * Also keeps the OpenIE relations of every sentence, read from
+     * the same parse as the paths.
+     * @param minConfidence The minimum confidence of a relation.
+     * @return This extractor.
+     */
+    public InformationExtractor relations(double minConfidence) {
+        this.relations = true;
+        this.minConfidence = minConfidence;
+        return this;
+    }
+
+    /**
+     * Also links paths across sentences through the co-reference
+     * chains of the document, which need the coref annotator.
+     * @return This extractor.
+     */
+    public InformationExtractor corefs() {
+        this.corefs = true;
+        return this;
+    }
+
+    /**
+     * @param parallelSentences Documents with at least this many sentences
+     *                          have their sentences processed in parallel.
+     * @return This extractor.
+     */
+    public InformationExtractor setParallelSentences(int parallelSentences) {
+        this.parallelSentences = parallelSentences;
+        return this;
+    }
+
+    /**
+     * Sets the number of workers used by {@link #extractAll(Iterable)}.
+     * Has no effect if an executor was given through
+     * {@link #setExecutor(ExecutorService)}. The first batch creates
+     * the workers, after which their number can't change.
+     * @param parallelism The number of worker threads.
+     * @return This extractor.
+     */
+    public InformationExtractor setParallelism(int parallelism) {
+        batches.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of documents being processed at the same
+     * time by {@link #extractAll(Iterable)}, twice the number of
+     * workers by default.
+     * @param maxInFlight The maximum number of documents in flight.
+     * @return This extractor.
+     */
+    public InformationExtractor setMaxInFlight(int maxInFlight) {
+        batches.setMaxInFlight(maxInFlight);
+        return this;
+    }
+
+    /**
+     * Uses an existing executor for batches instead of creating
+     * one. The caller owns its life cycle.
+     * @param executor The executor to run documents on.
+     * @return This extractor.
+     */
+    public InformationExtractor setExecutor(ExecutorService executor) {
+        batches.setExecutor(executor);
+        return this;
+    }
+
+    public InformationExtractor setBatchListener(IBatchListener listener) {
+        batches.setListener(listener);
+        return this;
+    }
+
+    /**
+     * A sentence whose annotations were all read, waiting for
+     * its paths to be extracted.
+     */
+    private static class ParsedSentence {
+        final Sentence sentence;
+        final CompactGraph graph;
+        final List<SpoTuple> relations;
+
+        ParsedSentence(Sentence sentence, CompactGraph graph, List<SpoTuple> relations) {
+            this.sentence = sentence;
+            this.graph = graph;
+            this.relations = relations;
+        }
+    }
+
+    /**
+     * Extracts and links the information paths of every sentence
+     * of a document.
+     * @param text The text of the document.
+     * @return The information of every sentence in document order.
+     */
+    public DocumentInformation extract(String text) {
+        Document document = new Document(text);
+        List<Sentence> sentences = document.sentences();
+
+        /*
+         * the annotators run (once, for the whole document) when the first
+         * graph is read, so everything that reads annotations happens here
+         * and the threads below only read the compact graphs
+         */
+        Map<Integer, CorefChain> chains = corefs ? document.coref() : null;
+        List<ParsedSentence> parsed = new ArrayList<>(sentences.size());
+        for (Sentence sentence : sentences) {
+            parsed.add(new ParsedSentence(sentence,
+                    CompactGraph.of(sentence.dependencyGraph(mode)),
+                    relations ? SyntacticFeatures.relations(sentence, minConfidence) : null));
+        }
+
+        IntStream indices = IntStream.range(0, parsed.size());
+        if (parsed.size() >= parallelSentences)
+            indices = indices.parallel();
+
+        List<SentenceInformation> information = indices
+                .mapToObj(index -> extractSentence(index, parsed.get(index)))
+                .collect(Collectors.toList()); // keeps the order of the sentences
+
+        DocumentInformation extracted = new DocumentInformation(text, information);
+        DocumentLinker.link(extracted, chains);
+        return extracted;
+    }
+
+    private SentenceInformation extractSentence(int index, ParsedSentence parsed) {
+        List<InformationPath> paths = InformationExtraction.findSimpleInformationPaths(parsed.graph, patterns);
+
+        Sentence sentence = parsed.sentence;
+        int length = sentence.length();
+        return new SentenceInformation(index,
+                length > 0 ? sentence.characterOffsetBegin(0) : 0,
+                length > 0 ? sentence.characterOffsetEnd(length - 1) : 0,
+                sentence.sentenceTokenOffsetBegin(),
+                parsed.graph, paths, parsed.relations);
+    }
+
+    /**
+     * Extracts the information of a batch of documents in parallel.
+     * @param texts The documents.
+     * @return The information of every document in input order.
+     */
+    public List<DocumentInformation> extractAll(Iterable<String> texts) {
+        List<DocumentInformation> results = new ArrayList<>();
+        extractAll(texts, results::add);
+        return results;
+    }
+
+    /**
+     * Extracts the information of a batch of documents in parallel and
+     * hands each result, in input order, to a consumer as soon as it and
+     * all the ones before it are done. Only a bounded number of documents
+     * are in flight at any time (see {@link #setMaxInFlight(int)}).
+     * @param texts The documents.
+     * @param consumer Receives the information of every document in input order.
+     */
+    public void extractAll(Iterable<String> texts, Consumer<DocumentInformation> consumer) {
+        batches.run(texts, this::extract, consumer);
+    }
+}
@@ -1,77 +1,106 @@
 package semantics.information;
 
-import edu.stanford.nlp.ling.IndexedWord;
-import edu.stanford.nlp.semgraph.SemanticGraph;
-import edu.stanford.nlp.semgraph.SemanticGraphFactory;
-import edu.stanford.nlp.simple.Sentence;
-import semantics.DocumentFeatures;
-import semantics.DocumentProcessor;
-import semantics.ExtractionProcess;
-
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
-import java.util.List;
-import java.util.Properties;
-import java.util.stream.Collectors;
-
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Prints the information paths of sentences read from stdin, or,
+ * with "--file <documents> [threads] [--corefs]", of a file with one
+ * document per line, processed by several threads. With "--corefs"
+ * paths are also linked across sentences through co-references.
+ */
 public class InformationMain {
-    private static void processSentence(String text, PrintStream output) {
-        Sentence sentence = new Sentence(text);
-//        Sentence sentence = InformationExtraction.simplifySentence(new Sentence(text));
-        SemanticGraph graph = sentence.dependencyGraph(SemanticGraphFactory.Mode.ENHANCED);
-        List<InformationPath> paths = InformationExtraction.findSimpleInformationPaths(graph);
+    private static void processSentence(String text, InformationExtractor extractor, PrintStream output) {
+        // the paths and the OpenIE relations come from the same parse
+        DocumentInformation document = extractor.extract(text);
+
+        for (SentenceInformation sentence : document.sentences) {
+            output.println("Graph: ");
+            SemanticGraphUtil.printGraph(sentence.graph);
 
-        output.println("Graph: ");
-        SemanticGraphUtil.printGraph(graph);
+            output.println("Simple paths:");
+            sentence.paths.forEach(path -> {
+                if (path.subject != null && path.subject.size() > 0) {
+                    output.println("\tSubject: " + InformationUtil.indexWordsToString(path.subject));
+                }
 
-        output.println("Simple paths:");
-        paths.forEach(path -> {
-            if (path.subject != null && path.subject.size() > 0) {
-                output.println("\tSubject: " + InformationUtil.indexWordsToString(path.subject));
-            }
+                output.println("\tPredicate: " + path.predicate.toString());
 
-            output.println("\tPredicate: " + path.predicate.toString());
+                if (path.object != null && path.object.size() > 0) {
+                    output.println("\tFull object: " + InformationUtil.indexWordsToString(path.object));
+                }
 
-            if (path.object != null && path.object.size() > 0) {
-                output.println("\tFull object: " + InformationUtil.indexWordsToString(path.object));
-            }
+                if (path.secondaryObject != null && path.secondaryObject.size() > 0) {
+                    output.println("\tSecondary object: " + InformationUtil.indexWordsToString(path.secondaryObject));
+                }
 
-            if (path.secondaryObject != null && path.secondaryObject.size() > 0) {
-                output.println("\tSecondary object: " + InformationUtil.indexWordsToString(path.secondaryObject));
-            }
+                output.println();
+            });
+
+            output.println("Information flows:");
+            sentence.paths.forEach(output::println);
 
-            output.println();
-        });
+            output.println("OpenIE: ");
+            sentence.relations.forEach(relation -> {
+                output.println("\t" + relation.subject + ", " + relation.predicate + ", " + relation.object);
+            });
+        }
+    }
 
-        output.println("Information flows:");
-        InformationExtraction.linkPaths(paths, graph);
+    private static void printDocument(int number, DocumentInformation document, PrintStream output) {
+        output.println("Document " + number + ":");
 
-        paths.forEach(System.out::println);
+        for (SentenceInformation sentence : document.sentences) {
+            output.println("\tSentence " + sentence.index + " [" + sentence.characterOffsetBegin + ", " +
+                    sentence.characterOffsetEnd + "): " + document.sentenceText(sentence));
+            sentence.paths.forEach(path -> output.println("\t\t" + path));
+        }
+    }
+
+    private static void processFile(String path, int threads, boolean corefs, PrintStream output) throws IOException {
+        InformationExtractor extractor = new InformationExtractor()
+                .setParallelism(threads)
+                .setBatchListener(report -> System.err.println(report));
+        if (corefs)
+            extractor.corefs();
+        int[] count = { 0 };
+
+        try (BufferedReader input = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            Iterable<String> documents = () -> input.lines()
+                    .filter(line -> !line.trim().isEmpty())
+                    .iterator();
+
+            extractor.extractAll(documents, document -> printDocument(++count[0], document, output));
+        }
     }
 
     public static void main(String[] args) throws IOException {
         String encoding = "UTF-8";
-        BufferedReader input = new BufferedReader(new InputStreamReader(System.in,encoding));
         PrintStream output = new PrintStream(System.out, true, encoding);
-        String line;
 
-        Properties operations = new ExtractionProcess()
-                .relations()
-                .get();
-        DocumentProcessor processor = new DocumentProcessor(operations);
+        if (args.length >= 2 && args[0].equals("--file")) {
+            boolean corefs = Arrays.asList(args).contains("--corefs");
+            int threads = args.length >= 3 && !args[2].equals("--corefs") ?
+                    Integer.parseInt(args[2]) :
+                    Runtime.getRuntime().availableProcessors();
+            processFile(args[1], threads, corefs, output);
+            return;
+        }
+
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in,encoding));
+        InformationExtractor extractor = new InformationExtractor()
+                .relations(0.5);
+        String line;
 
         output.print("Sentence: ");
         while ((line = input.readLine()) != null && !line.isEmpty()) {
-            processSentence(line, output);
-
-            DocumentFeatures features = processor.processDocument(line);
-            System.out.println("OpenIE: ");
-            features.relations.forEach(relation -> {
-                System.out.println("\t" + relation.subject + ", " + relation.predicate + ", " + relation.object);
-            });
-
+            processSentence(line, extractor, output);
             output.print("\nSentence: ");
         }
     }
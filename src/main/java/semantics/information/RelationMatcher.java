@@ -0,0 +1,220 @@
+package semantics.information;
+
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+import edu.stanford.nlp.trees.GrammaticalRelation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled group of relation fragments. A relation matches if its
+ * short name contains any of the fragments, exactly like
+ * {@link InformationUtil#containsAny(String, List)}, but without
+ * scanning the name for every fragment.
+ *
+ * Every fragment known to any matcher owns one bit of a long, and
+ * every relation name is interned once as an int label which knows
+ * the bits of all the fragments the name contains. Matching an edge
+ * is then a lookup of its label and a single AND with the bits of
+ * the group.
+ */
+public final class RelationMatcher {
+    private static final int MAX_FRAGMENTS = Long.SIZE;
+
+    // guarded by the class lock, fragmentList is republished on every change
+    private static final Map<String, Integer> fragmentBits = new HashMap<>();
+    private static volatile String[] fragmentList = new String[0];
+
+    // guarded by the class lock too, labelTable is republished when it grows
+    private static final ConcurrentHashMap<String, Integer> labels = new ConcurrentHashMap<>();
+    private static volatile Label[] labelTable = new Label[16];
+
+    /**
+     * An interned relation name. The mask only covers the first
+     * {@code fragments} fragments; it's recomputed when new
+     * fragments have been registered since.
+     */
+    private static final class Label {
+        final String name;
+        final long mask;
+        final int fragments;
+
+        Label(String name, String[] known) {
+            long mask = 0L;
+            for (int bit = 0; bit < known.length; bit++) {
+                if (name.contains(known[bit]))
+                    mask |= 1L << bit;
+            }
+
+            this.name = name;
+            this.mask = mask;
+            this.fragments = known.length;
+        }
+    }
+
+    private final List<String> fragments;
+    private final long mask;
+
+    private RelationMatcher(List<String> fragments) {
+        this.fragments = Collections.unmodifiableList(fragments);
+        this.mask = register(fragments);
+    }
+
+    /**
+     * Creates a matcher registering its fragments in the table shared
+     * by all matchers, which holds at most 64 fragments and never
+     * shrinks; meant for the fixed relations of the extraction code.
+     * Rules loaded at runtime are matched by {@link ExtractionPatterns},
+     * which keeps its fragments to itself.
+     * @throws IllegalStateException If the table is full.
+     */
+    public static RelationMatcher of(String... fragments) {
+        return new RelationMatcher(Arrays.asList(fragments));
+    }
+
+    /**
+     * @see #of(String...)
+     */
+    public static RelationMatcher of(List<String> fragments) {
+        return new RelationMatcher(fragments);
+    }
+
+    private static synchronized long register(List<String> fragments) {
+        long mask = 0L;
+        String[] known = fragmentList;
+
+        for (String fragment : fragments) {
+            Integer bit = fragmentBits.get(fragment);
+            if (bit == null) {
+                if (fragmentBits.size() == MAX_FRAGMENTS)
+                    throw new IllegalStateException("No more than " + MAX_FRAGMENTS + " relation fragments are supported");
+
+                bit = fragmentBits.size();
+                fragmentBits.put(fragment, bit);
+                known = Arrays.copyOf(known, known.length + 1);
+                known[bit] = fragment;
+            }
+            mask |= 1L << bit;
+        }
+
+        fragmentList = known;
+        return mask;
+    }
+
+    /**
+     * @param relation The short name of a relation.
+     * @return The interned label of the name, the same for every equal name.
+     */
+    public static int label(String relation) {
+        Integer label = labels.get(relation);
+        return label != null ? label : intern(relation);
+    }
+
+    public static int label(GrammaticalRelation relation) {
+        return label(relation.getShortName());
+    }
+
+    public static int label(SemanticGraphEdge edge) {
+        return label(edge.getRelation().getShortName());
+    }
+
+    private static synchronized int intern(String relation) {
+        Integer existing = labels.get(relation);
+        if (existing != null)
+            return existing;
+
+        int label = labels.size();
+        Label[] table = labelTable;
+        if (label == table.length)
+            table = Arrays.copyOf(table, table.length * 2);
+
+        table[label] = new Label(relation, fragmentList);
+        labelTable = table;
+        labels.put(relation, label);
+        return label;
+    }
+
+    /**
+     * @param label An interned label, see {@link #label(String)}.
+     * @return The short name of the relation.
+     */
+    static String name(int label) {
+        return labelTable[label].name;
+    }
+
+    /**
+     * @param label An interned label, see {@link #label(String)}.
+     * @return The bits of all the registered fragments which the label contains.
+     */
+    public static long mask(int label) {
+        String[] known = fragmentList;
+        Label[] table = labelTable;
+        Label interned = table[label];
+
+        if (interned.fragments != known.length) {
+            // losing this update to a concurrent one only means computing it again
+            interned = new Label(interned.name, known);
+            table[label] = interned;
+        }
+
+        return interned.mask;
+    }
+
+    /**
+     * @param relation The short name of a relation.
+     * @return The bits of all the registered fragments which the name contains.
+     */
+    public static long mask(String relation) {
+        return mask(label(relation));
+    }
+
+    public static long mask(GrammaticalRelation relation) {
+        return mask(relation.getShortName());
+    }
+
+    public static long mask(SemanticGraphEdge edge) {
+        return mask(edge.getRelation().getShortName());
+    }
+
+    /**
+     * @param relationMask The mask of a relation, see {@link #mask(int)}, taken
+     *                     after this matcher was created.
+     * @return Whether the relation contains any of the fragments of this matcher.
+     */
+    public boolean matches(long relationMask) {
+        return (relationMask & mask) != 0;
+    }
+
+    /**
+     * @param label An interned label, see {@link #label(String)}.
+     * @return Whether the label contains any of the fragments of this matcher.
+     */
+    public boolean matchesLabel(int label) {
+        return matches(mask(label));
+    }
+
+    public boolean matches(String relation) {
+        return matches(mask(relation));
+    }
+
+    public boolean matches(GrammaticalRelation relation) {
+        return matches(mask(relation));
+    }
+
+    public boolean matches(SemanticGraphEdge edge) {
+        return matches(mask(edge));
+    }
+
+    public List<String> fragments() {
+        return fragments;
+    }
+
+    @Override
+    public String toString() {
+        return "RelationMatcher" + fragments;
+    }
+}
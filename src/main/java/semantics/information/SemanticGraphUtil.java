@@ -2,44 +2,38 @@ package semantics.information;
 
 import edu.stanford.nlp.ling.IndexedWord;
 import edu.stanford.nlp.semgraph.SemanticGraph;
-import edu.stanford.nlp.semgraph.SemanticGraphEdge;
 import edu.stanford.nlp.simple.Sentence;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class SemanticGraphUtil {
-    static List<SemanticGraphEdge> findOutgoingEdges(SemanticGraph graph, IndexedWord start, List<String> contains) {
-        List<SemanticGraphEdge> parents = graph.outgoingEdgeList(start);
-        return parents.stream()
-                .filter(edge -> InformationUtil.containsAny(edge.getRelation().getShortName(), contains))
-                .collect(Collectors.toList());
+    static int[] findOutgoingEdges(CompactGraph graph, int start, RelationMatcher relations) {
+        return graph.outgoingEdges(start, relations);
     }
 
-    static List<IndexedWord> findUp(SemanticGraph graph, IndexedWord start, List<String> contains) {
-        List<SemanticGraphEdge> parents = graph.outgoingEdgeList(start);
-        List<IndexedWord> rest = parents.stream()
-                .filter(edge -> InformationUtil.containsAny(edge.getRelation().getShortName(), contains))
-                .map(SemanticGraphEdge::getDependent)
-                .collect(Collectors.toList());
+    static List<IndexedWord> findUp(CompactGraph graph, int start, RelationMatcher relations) {
+        List<IndexedWord> rest = new ArrayList<>();
+        for (int i = graph.outgoingStart(start); i < graph.outgoingEnd(start); i++) {
+            int edge = graph.outgoingEdge(i);
+            if (graph.matches(edge, relations))
+                rest.add(graph.word(graph.dependent(edge)));
+        }
         //Collections.reverse(rest);
         return rest;
     }
 
-    static List<IndexedWord> findUpWithCase(SemanticGraph graph, IndexedWord start, List<String> contains) {
-        List<SemanticGraphEdge> parents = graph.outgoingEdgeList(start);
-        List<IndexedWord> amplifiedEdges = parents.stream()
-                .filter(edge -> InformationUtil.containsAny(edge.getRelation().getShortName(), contains))
-                .map(edge -> {
-                    List<IndexedWord> cases = findUp(graph, edge.getDependent(), Arrays.asList("case", "det"));
-                    cases.add(edge.getDependent());
-                    return cases;
-                })
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+    static List<IndexedWord> findUpWithCase(CompactGraph graph, int start, RelationMatcher relations) {
+        List<IndexedWord> amplifiedEdges = new ArrayList<>();
+        for (int i = graph.outgoingStart(start); i < graph.outgoingEnd(start); i++) {
+            int edge = graph.outgoingEdge(i);
+            if (graph.matches(edge, relations)) {
+                int dependent = graph.dependent(edge);
+                amplifiedEdges.addAll(findUp(graph, dependent, InformationPatterns.CASE_AND_DET));
+                amplifiedEdges.add(graph.word(dependent));
+            }
+        }
 
 //        List<IndexedWord> rest = parents.stream()
 //                .filter(edge -> InformationUtil.containsAny(edge.getRelation().getShortName(), contains))
@@ -53,13 +47,13 @@ public class SemanticGraphUtil {
         return amplifiedEdges;
     }
 
-    static List<IndexedWord> findCompounds(SemanticGraph graph, IndexedWord start) {
+    static List<IndexedWord> findCompounds(CompactGraph graph, int start) {
         List<IndexedWord> relatedWords = findUp(graph, start, InformationPatterns.COMPOUND_AND_JMODS);
-        relatedWords.add(start);
+        relatedWords.add(graph.word(start));
         return relatedWords;
     }
 
-    static List<IndexedWord> findMods(SemanticGraph graph, IndexedWord start, List<IndexedWord> wordsToFilter) {
+    static List<IndexedWord> findMods(CompactGraph graph, int start, List<IndexedWord> wordsToFilter) {
         List<IndexedWord> relatedWords = findUpWithCase(graph, start, InformationPatterns.MODS).stream()
                 .filter(word -> !wordsToFilter.contains(word))
                 .collect(Collectors.toList());
@@ -89,4 +83,26 @@ public class SemanticGraphUtil {
             System.out.println();
         }
     }
+
+    public static void printGraph(CompactGraph graph) {
+        for (int node = 0; node < graph.size(); node++) {
+            if (graph.childStart(node) == graph.childEnd(node))
+                continue;
+
+            System.out.print("word: ");
+            System.out.println(graph.word(node));
+            System.out.println("children: ");
+            for (int child = graph.childStart(node); child < graph.childEnd(node); child++) {
+                System.out.println(graph.word(graph.child(child)));
+                for (int i = graph.outgoingStart(node); i < graph.outgoingEnd(node); i++) {
+                    int edge = graph.outgoingEdge(i);
+                    if (graph.dependent(edge) == graph.child(child)) {
+                        System.out.print(graph.edge(edge));
+                        System.out.println(" -- " + graph.edge(edge).getRelation().getLongName());
+                    }
+                }
+            }
+            System.out.println();
+        }
+    }
 }
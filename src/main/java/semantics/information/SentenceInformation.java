@@ -0,0 +1,30 @@
+package semantics.information;
+
+import semantics.SpoTuple;
+
+import java.util.List;
+
+/**
+ * The information extracted from one sentence of a document,
+ * along with where the sentence is in the document.
+ */
+public class SentenceInformation {
+    public final int index;
+    public final int characterOffsetBegin; // inclusive
+    public final int characterOffsetEnd; // exclusive
+    public final int tokenOffsetBegin;
+    public final CompactGraph graph;
+    public final List<InformationPath> paths;
+    public final List<SpoTuple> relations; // OpenIE triples, null unless requested
+
+    public SentenceInformation(int index, int characterOffsetBegin, int characterOffsetEnd, int tokenOffsetBegin,
+                               CompactGraph graph, List<InformationPath> paths, List<SpoTuple> relations) {
+        this.index = index;
+        this.characterOffsetBegin = characterOffsetBegin;
+        this.characterOffsetEnd = characterOffsetEnd;
+        this.tokenOffsetBegin = tokenOffsetBegin;
+        this.graph = graph;
+        this.paths = paths;
+        this.relations = relations;
+    }
+}
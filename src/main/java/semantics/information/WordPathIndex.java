@@ -0,0 +1,121 @@
+package semantics.information;
+
+import java.util.Arrays;
+
+/**
+ * A multimap from the position of a word in a document to the ids
+ * of the paths the word is part of. Positions are primitive long
+ * keys, see {@link #key(int, int)}, and the paths of every key are
+ * kept in the order they were added, as a linked list of entries:
+ * <pre>
+ *     for (int entry = index.first(key); entry != -1; entry = index.next(entry))
+ *         index.path(entry) ...
+ * </pre>
+ */
+final class WordPathIndex {
+    private static final int EMPTY = -1;
+
+    private long[] keys;
+    private int[] heads;
+    private int[] tails;
+    private int size;
+
+    private int[] entryPaths;
+    private int[] entryNext;
+    private int entries;
+
+    WordPathIndex(int expectedEntries) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedEntries) * 2 - 1) << 1;
+        keys = new long[capacity];
+        heads = new int[capacity];
+        tails = new int[capacity];
+        Arrays.fill(heads, EMPTY);
+
+        entryPaths = new int[Math.max(4, expectedEntries)];
+        entryNext = new int[entryPaths.length];
+    }
+
+    /**
+     * @param sentence The index of the sentence in the document.
+     * @param token The index of the token in the sentence.
+     * @return The key of the word.
+     */
+    static long key(int sentence, int token) {
+        return ((long) sentence << 32) | (token & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (heads[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    void add(long key, int path) {
+        if (entries == entryPaths.length) {
+            entryPaths = Arrays.copyOf(entryPaths, entries * 2);
+            entryNext = Arrays.copyOf(entryNext, entries * 2);
+        }
+
+        int entry = entries++;
+        entryPaths[entry] = path;
+        entryNext[entry] = EMPTY;
+
+        int slot = slot(key);
+        if (heads[slot] == EMPTY) {
+            keys[slot] = key;
+            heads[slot] = entry;
+            tails[slot] = entry;
+            if (++size * 2 > keys.length)
+                grow();
+        }
+        else {
+            entryNext[tails[slot]] = entry;
+            tails[slot] = entry;
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads, oldTails = tails;
+
+        keys = new long[oldKeys.length * 2];
+        heads = new int[keys.length];
+        tails = new int[keys.length];
+        Arrays.fill(heads, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] == EMPTY)
+                continue;
+
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            heads[slot] = oldHeads[i];
+            tails[slot] = oldTails[i];
+        }
+    }
+
+    /**
+     * @return The first entry of the key, or -1 if it has none.
+     */
+    int first(long key) {
+        return heads[slot(key)];
+    }
+
+    /**
+     * @return The entry after the given one with the same key, or -1.
+     */
+    int next(int entry) {
+        return entryNext[entry];
+    }
+
+    int path(int entry) {
+        return entryPaths[entry];
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.Assert;
+import org.junit.Test;
+import semantics.BatchExecutor;
+import semantics.BatchReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchExecutorTests {
+
+    @Test
+    public void inFlightFollowsParallelism() {
+        BatchExecutor batches = new BatchExecutor("test");
+
+        batches.setParallelism(8);
+        Assert.assertEquals(16, batches.maxInFlight());
+
+        batches.setMaxInFlight(3);
+        Assert.assertEquals(3, batches.maxInFlight());
+    }
+
+    @Test
+    public void parallelismIsFixedOnceRunning() {
+        BatchExecutor batches = new BatchExecutor("test");
+        batches.setParallelism(2);
+
+        List<String> results = new ArrayList<>();
+        batches.run(Arrays.asList("a", "b", "c"), String::toUpperCase, results::add);
+        Assert.assertEquals(Arrays.asList("A", "B", "C"), results);
+
+        batches.setParallelism(2); // nothing changes
+        try {
+            batches.setParallelism(4);
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void workersAreNumbered() {
+        BatchExecutor batches = new BatchExecutor("test");
+        batches.setParallelism(2);
+
+        Set<String> names = Collections.synchronizedSet(new HashSet<>());
+        CountDownLatch together = new CountDownLatch(2);
+        batches.run(Arrays.asList("a", "b"), text -> {
+            names.add(Thread.currentThread().getName());
+            together.countDown();
+            try {
+                together.await(10, TimeUnit.SECONDS); // both workers are busy at once
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return text;
+        }, text -> {});
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("test-0", "test-1")), names);
+    }
+
+    @Test
+    public void reportsTheExecutorWorkers() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        BatchReport[] report = { null };
+
+        try {
+            BatchExecutor batches = new BatchExecutor("test");
+            batches.setParallelism(8);
+            batches.setExecutor(executor);
+            batches.setListener(batch -> report[0] = batch);
+
+            batches.run(Arrays.asList("a", "b"), String::length, length -> {});
+
+            Assert.assertEquals(2, report[0].documents);
+            Assert.assertEquals(3, report[0].parallelism);
+            Assert.assertEquals(6, batches.maxInFlight());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failureCancelsTheRest() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+
+        BatchExecutor batches = new BatchExecutor("test");
+        batches.setParallelism(2);
+        batches.setMaxInFlight(4);
+
+        try {
+            batches.run(Arrays.asList("bad", "a", "b", "c"), text -> {
+                if (text.equals("bad"))
+                    throw new IllegalArgumentException(text);
+
+                try {
+                    if (release.await(10, TimeUnit.SECONDS))
+                        completed.incrementAndGet();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return text;
+            }, text -> {});
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertEquals("bad", ex.getMessage());
+        }
+
+        // the running documents were interrupted and the queued ones never start
+        release.countDown();
+        Thread.sleep(200);
+        Assert.assertEquals(0, completed.get());
+    }
+}
@@ -0,0 +1,118 @@
+import edu.stanford.nlp.simple.Sentence;
+import org.junit.Assert;
+import org.junit.Test;
+import semantics.CorpusTfIdfScorer;
+import semantics.DocumentFrequencyIndex;
+import semantics.IDocumentFrequencies;
+import semantics.TfIdfTerm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class DocumentFrequencyTests {
+
+    @Test
+    public void countDocuments() {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex();
+        index.addDocument(Arrays.asList("oil", "barrel"));
+        index.addDocument(Arrays.asList("oil", "week"));
+
+        Assert.assertEquals(2, index.documents());
+        Assert.assertEquals(2, index.documentFrequency("oil"));
+        Assert.assertEquals(1, index.documentFrequency("week"));
+        Assert.assertEquals(0, index.documentFrequency("crude"));
+    }
+
+    @Test
+    public void snapshotIsFrozen() {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex();
+        index.addDocument(Arrays.asList("oil", "barrel"));
+
+        DocumentFrequencyIndex.Snapshot snapshot = index.snapshot();
+        index.addDocument(Arrays.asList("oil", "week"));
+
+        Assert.assertEquals(1, snapshot.documents());
+        Assert.assertEquals(1, snapshot.documentFrequency("oil"));
+        Assert.assertEquals(0, snapshot.documentFrequency("week"));
+    }
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex();
+        index.addDocument(Arrays.asList("oil", "barrel"));
+        index.addDocument(Arrays.asList("oil", "week"));
+
+        Path file = Files.createTempFile("df", ".idx");
+        try {
+            index.save(file);
+            DocumentFrequencyIndex loaded = DocumentFrequencyIndex.load(file);
+
+            Assert.assertEquals(2, loaded.documents());
+            Assert.assertEquals(2, loaded.documentFrequency("oil"));
+            Assert.assertEquals(1, loaded.documentFrequency("barrel"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static TfIdfTerm find(List<TfIdfTerm> terms, String term) {
+        return terms.stream()
+                .filter(tfIdf -> tfIdf.term.equals(term))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Test
+    public void corpusTfIdf() {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex();
+        index.addDocument(Arrays.asList("oil", "barrel"));
+        index.addDocument(Arrays.asList("oil", "week"));
+        index.addDocument(Arrays.asList("price"));
+
+        /* scoring a snapshot doesn't change it */
+        List<TfIdfTerm> terms = new CorpusTfIdfScorer(index.snapshot())
+                .score(new Sentence("oil oil barrel crude").tokens());
+
+        Assert.assertEquals(3, terms.size());
+        Assert.assertEquals(3, index.documents());
+
+        TfIdfTerm oil = find(terms, "oil");
+        Assert.assertEquals(2, oil.tf, 0.0);
+        Assert.assertEquals(1 + Math.log10(4.0 / 3), oil.idf, 1e-9);
+        Assert.assertEquals((1 + Math.log10(2)) * oil.idf, oil.tfIdf, 1e-9);
+
+        TfIdfTerm barrel = find(terms, "barrel");
+        Assert.assertEquals(1, barrel.tf, 0.0);
+        Assert.assertEquals(1 + Math.log10(2), barrel.idf, 1e-9);
+        Assert.assertEquals(barrel.idf, barrel.tfIdf, 1e-9);
+
+        TfIdfTerm crude = find(terms, "crude");
+        Assert.assertEquals(1 + Math.log10(4), crude.idf, 1e-9);
+
+        /* scoring the index adds the document first */
+        terms = new CorpusTfIdfScorer(index)
+                .score(new Sentence("oil oil barrel crude").tokens());
+
+        Assert.assertEquals(4, index.documents());
+        Assert.assertEquals(1, index.documentFrequency("crude"));
+        Assert.assertEquals(1 + Math.log10(5.0 / 4), find(terms, "oil").idf, 1e-9);
+        Assert.assertEquals(1 + Math.log10(5.0 / 2), find(terms, "crude").idf, 1e-9);
+    }
+
+    @Test
+    public void documentFrequencyIsClamped() {
+        // what a snapshot taken while documents are added could look like
+        IDocumentFrequencies frequencies = new IDocumentFrequencies() {
+            public long documentFrequency(String term) { return 5; }
+            public long documents() { return 3; }
+        };
+
+        List<TfIdfTerm> terms = new CorpusTfIdfScorer(frequencies)
+                .score(new Sentence("oil").tokens());
+
+        Assert.assertEquals(1.0, terms.get(0).idf, 1e-9);
+    }
+}
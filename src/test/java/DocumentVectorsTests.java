@@ -1,12 +1,26 @@
+import edu.stanford.nlp.simple.Sentence;
+import edu.stanford.nlp.simple.Token;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.cpu.nativecpu.NDArray;
+import semantics.DocumentEmbeddings;
+import semantics.DocumentProcessor;
 import semantics.DocumentVectors;
+import semantics.ExtractionProcess;
+import semantics.DocumentFrequencyIndex;
+import semantics.IWordEmbeddings;
+import semantics.SifModel;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 
 public class DocumentVectorsTests {
 
@@ -25,6 +39,31 @@ public class DocumentVectorsTests {
         vectors.add(new NDArray(new double[][] { vectorsValues[1] }));
     }
 
+    /**
+     * A small in-memory table of three words, "crude" isn't one of them.
+     */
+    private static IWordEmbeddings embeddings() {
+        Map<String, double[]> table = new HashMap<>();
+        table.put("oil", new double[] { 1.0, 2.0, 3.0 });
+        table.put("barrel", new double[] { 1.0, 4.0, 5.0 });
+        table.put("price", new double[] { -2.0, 0.0, 1.0 });
+
+        return new IWordEmbeddings() {
+            public int size() { return table.size(); }
+            public int dimension() { return 3; }
+            public Iterable<String> words() { return table.keySet(); }
+            public boolean contains(String word) { return table.containsKey(word); }
+            public boolean addTo(String word, double weight, double[] accumulator) {
+                double[] vector = table.get(word);
+                if (vector == null)
+                    return false;
+                for (int i = 0; i < vector.length; i++)
+                    accumulator[i] += weight * vector[i];
+                return true;
+            }
+        };
+    }
+
     @Test
     public void meanVectorFromList() {
         double[] meanVector = DocumentVectors.meanVector(vectors);
@@ -42,4 +81,118 @@ public class DocumentVectorsTests {
         Assert.assertEquals(3.0, meanVector[1], 0.0);
         Assert.assertEquals(4.0, meanVector[2], 0.0);
     }
-} 
+
+    @Test
+    public void sifModel() {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex();
+        index.addDocument(Arrays.asList("the", "oil"));
+        index.addDocument(Arrays.asList("the", "barrel"));
+
+        SifModel model = new SifModel(index, 0.5);
+        Assert.assertEquals(0.5 / 1.5, model.weight("the"), 1e-9);
+        Assert.assertEquals(0.5, model.weight("oil"), 1e-9);
+        Assert.assertEquals(1.0, model.weight("crude"), 1e-9);
+
+        List<double[]> documents = Arrays.asList(
+                new double[] { 2.0, 0.1 },
+                new double[] { 4.0, -0.1 },
+                new double[] { -3.0, 0.0 });
+        model.fitComponent(documents);
+
+        // the vectors mostly vary along the first dimension
+        Assert.assertEquals(1.0, Math.abs(model.getComponent()[0]), 1e-3);
+
+        double[] vector = { 1.0, 1.0 };
+        model.removeComponent(vector);
+        Assert.assertEquals(0.0, vector[0] * model.getComponent()[0] + vector[1] * model.getComponent()[1], 1e-9);
+    }
+
+    @Test
+    public void embedTokens() {
+        IWordEmbeddings embeddings = embeddings();
+        List<Token> tokens = new Sentence("oil price crude barrel oil").tokens();
+
+        Map<String, Double> tfIdf = new HashMap<>();
+        tfIdf.put("oil", 2.0);
+        tfIdf.put("barrel", 0.5);
+        tfIdf.put("crude", 4.0); // has no vector, so it doesn't count
+        // "price" has no weight
+
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex();
+        index.addDocument(Arrays.asList("oil", "price"));
+        index.addDocument(Arrays.asList("oil", "barrel"));
+        SifModel sif = new SifModel(index, 0.5)
+                .setComponent(new double[] { 0.6, 0.8, 0.0 });
+
+        DocumentEmbeddings embedded = DocumentVectors.embedTokens(tokens, embeddings, true, tfIdf, sif);
+
+        /* each vector computed on its own */
+        double[] mean = new double[3];
+        double[] weighted = new double[3];
+        double[] smoothed = new double[3];
+        Set<String> weightedTerms = new HashSet<>();
+        double weights = 0;
+        int found = 0;
+        for (Token token : tokens) {
+            double[] vector = embeddings.vector(token.word());
+            if (vector == null)
+                continue;
+            found++;
+
+            // the weights already count the occurrences of a term
+            Double weight = weightedTerms.add(token.word()) ? tfIdf.get(token.word()) : null;
+            for (int i = 0; i < 3; i++) {
+                mean[i] += vector[i];
+                smoothed[i] += sif.weight(token.word()) * vector[i];
+                if (weight != null)
+                    weighted[i] += weight * vector[i];
+            }
+            if (weight != null)
+                weights += weight;
+        }
+        for (int i = 0; i < 3; i++) {
+            mean[i] /= found;
+            weighted[i] /= weights;
+            smoothed[i] /= found;
+        }
+        sif.removeComponent(smoothed);
+
+        Assert.assertEquals(4, found);
+        Assert.assertArrayEquals(new double[] { 0.25, 2.0, 3.0 }, mean, 1e-9);
+        Assert.assertArrayEquals(mean, embedded.mean, 1e-9);
+        Assert.assertArrayEquals(DocumentVectors.getMeanVectorsFromTokens(tokens, embeddings), embedded.mean, 1e-9);
+        Assert.assertArrayEquals(weighted, embedded.tfIdfMean, 1e-9);
+        Assert.assertArrayEquals(smoothed, embedded.sif, 1e-9);
+
+        /* only what's asked for */
+        DocumentEmbeddings sifOnly = DocumentVectors.embedTokens(tokens, embeddings, false, null, sif);
+        Assert.assertNull(sifOnly.mean);
+        Assert.assertNull(sifOnly.tfIdfMean);
+        Assert.assertArrayEquals(smoothed, sifOnly.sif, 1e-9);
+    }
+
+    @Test
+    public void tfIdfCountsTermsOnce() {
+        List<Token> tokens = new Sentence("oil oil barrel").tokens();
+
+        Map<String, Double> tfIdf = new HashMap<>();
+        tfIdf.put("oil", 2.0);
+        tfIdf.put("barrel", 0.5);
+
+        DocumentEmbeddings embedded = DocumentVectors.embedTokens(tokens, embeddings(), false, tfIdf, null);
+
+        // (2.0 * oil + 0.5 * barrel) / 2.5
+        Assert.assertArrayEquals(new double[] { 1.0, 2.4, 3.4 }, embedded.tfIdfMean, 1e-9);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sifWithoutModel() {
+        Properties operations = new ExtractionProcess()
+                .word2vecSif()
+                .get();
+
+        new DocumentProcessor(operations)
+                .setWord2vec(embeddings())
+                .processDocument("The price of oil.");
+    }
+}
@@ -0,0 +1,89 @@
+import org.junit.Assert;
+import org.junit.Test;
+import semantics.embeddings.EmbeddingPooling;
+import semantics.embeddings.EmbeddingsWriter;
+import semantics.embeddings.IPoolingKernel;
+import semantics.embeddings.MappedEmbeddings;
+import semantics.embeddings.PoolingKernels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class EmbeddingPoolingTests {
+
+    @Test
+    public void kernelsAgree() {
+        Random random = new Random(7);
+        int dimension = 11; // not a multiple of the unrolling
+
+        double[] vector = new double[dimension];
+        ByteBuffer floats = ByteBuffer.allocate(4 + dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+            floats.putFloat(4 + i * Float.BYTES, (float) vector[i]);
+        }
+
+        double[][] results = new double[2][];
+        IPoolingKernel[] kernels = { PoolingKernels.SCALAR, PoolingKernels.UNROLLED };
+
+        for (int k = 0; k < kernels.length; k++) {
+            double[] accumulator = new double[dimension];
+            kernels[k].addScaled(accumulator, vector, 0.5);
+            kernels[k].addScaled(accumulator, floats, 4, 2.0);
+            kernels[k].max(accumulator, vector);
+            kernels[k].scale(accumulator, 3.0);
+            results[k] = accumulator;
+        }
+
+        Assert.assertArrayEquals(results[0], results[1], 0.0);
+    }
+
+    @Test
+    public void maxOfSpecialValues() {
+        // inside and past the unrolled part
+        double nan = Double.NaN;
+        double[] vector = { nan, -0.0, 0.0, 1, 2, nan, -0.0, 0.0, -1 };
+        double[] start = { 1, 0.0, -0.0, nan, 3, 1, 0.0, -0.0, nan };
+        double[] expected = { nan, 0.0, 0.0, nan, 3, nan, 0.0, 0.0, nan };
+
+        for (IPoolingKernel kernel : new IPoolingKernel[] { PoolingKernels.SCALAR, PoolingKernels.UNROLLED }) {
+            double[] accumulator = start.clone();
+            kernel.max(accumulator, vector);
+
+            // assertArrayEquals doesn't tell 0.0 from -0.0
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals("element " + i, Double.doubleToLongBits(expected[i]),
+                        Double.doubleToLongBits(accumulator[i]));
+            }
+        }
+    }
+
+    @Test
+    public void poolWords() throws Exception {
+        Path file = Files.createTempFile("pooling", ".emb");
+
+        try (EmbeddingsWriter writer = new EmbeddingsWriter(file, 2)) {
+            writer.add("oil", new float[] { 1f, -2f });
+            writer.add("barrel", new float[] { 3f, 4f });
+        }
+
+        MappedEmbeddings embeddings = MappedEmbeddings.open(file);
+        EmbeddingPooling pooling = new EmbeddingPooling();
+        List<String> words = Arrays.asList("oil", "crude", "barrel");
+
+        Assert.assertArrayEquals(new double[] { 4, 2 }, pooling.sum(words, embeddings), 0.0);
+        Assert.assertArrayEquals(new double[] { 2, 1 }, pooling.mean(words, embeddings), 0.0);
+        Assert.assertArrayEquals(new double[] { 3, 4 }, pooling.max(words, embeddings), 0.0);
+        Assert.assertArrayEquals(new double[] { 2.5, 2.5 },
+                pooling.weightedMean(words, new double[] { 1, 5, 3 }, embeddings), 0.0);
+        Assert.assertArrayEquals(new double[] { 0, 0 },
+                pooling.max(Arrays.asList("crude"), embeddings), 0.0);
+
+        Files.delete(file);
+    }
+}
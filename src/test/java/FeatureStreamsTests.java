@@ -0,0 +1,108 @@
+import org.junit.Assert;
+import org.junit.Test;
+import semantics.DocumentFeatures;
+import semantics.NamedEntity;
+import semantics.Sentiment;
+import semantics.FeaturesMsgpackCodec;
+import semantics.FeaturesReader;
+import semantics.FeaturesWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FeatureStreamsTests {
+
+    private static List<DocumentFeatures> documents() {
+        List<DocumentFeatures> documents = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DocumentFeatures features = new DocumentFeatures();
+            features.ngrams = Arrays.asList("oil barrel", "barrel price");
+            features.numSentences = i;
+            features.word2Vec = new double[] { i, 0.5 };
+            documents.add(features);
+        }
+        return documents;
+    }
+
+    private static void assertSameDocuments(List<DocumentFeatures> expected, FeaturesReader reader) {
+        int i = 0;
+        while (reader.hasNext()) {
+            DocumentFeatures features = reader.next();
+            Assert.assertEquals(expected.get(i).numSentences, features.numSentences);
+            Assert.assertEquals(expected.get(i).ngrams, features.ngrams);
+            Assert.assertArrayEquals(expected.get(i).word2Vec, features.word2Vec, 0.0);
+            i++;
+        }
+        Assert.assertEquals(expected.size(), i);
+    }
+
+    @Test
+    public void jsonLines() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (FeaturesWriter writer = FeaturesWriter.jsonLines(output)) {
+            writer.writeAll(documents());
+        }
+
+        String[] lines = output.toString("UTF-8").split("\n");
+        Assert.assertEquals(3, lines.length);
+
+        try (FeaturesReader reader = FeaturesReader.jsonLines(new ByteArrayInputStream(output.toByteArray()))) {
+            assertSameDocuments(documents(), reader);
+        }
+    }
+
+    @Test
+    public void lengthDelimitedMsgpack() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (FeaturesWriter writer = FeaturesWriter.msgpack(output)) {
+            writer.writeAll(documents());
+        }
+
+        try (FeaturesReader reader = FeaturesReader.msgpack(new ByteArrayInputStream(output.toByteArray()))) {
+            assertSameDocuments(documents(), reader);
+        }
+    }
+
+    @Test
+    public void msgpackCodec() {
+        DocumentFeatures features = documents().get(2);
+        features.sentiment = Sentiment.Positive;
+        features.entities = Arrays.asList(new NamedEntity("Germany", "LOCATION"));
+        features.containsQuotes = false;
+
+        DocumentFeatures decoded = FeaturesMsgpackCodec.decode(FeaturesMsgpackCodec.encode(features));
+
+        Assert.assertEquals(features.ngrams, decoded.ngrams);
+        Assert.assertEquals(Sentiment.Positive, decoded.sentiment);
+        Assert.assertEquals("LOCATION", decoded.entities.get(0).type);
+        Assert.assertEquals(false, decoded.containsQuotes);
+        Assert.assertArrayEquals(features.word2Vec, decoded.word2Vec, 0.0);
+        Assert.assertNull(decoded.gloVe);
+
+        // embeddings written by Jackson as arrays are read too
+        decoded = FeaturesMsgpackCodec.decode(features.toMsgpackBytes());
+        Assert.assertArrayEquals(features.word2Vec, decoded.word2Vec, 0.0);
+    }
+
+    @Test
+    public void corruptLengths() throws IOException {
+        byte[][] streams = {
+                { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xfe }, // negative
+                { 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff }, // way too long
+        };
+
+        for (byte[] stream : streams) {
+            try (FeaturesReader reader = FeaturesReader.msgpack(new ByteArrayInputStream(stream))) {
+                reader.hasNext();
+                Assert.fail();
+            } catch (UncheckedIOException ex) {
+                Assert.assertTrue(ex.getCause().getMessage().startsWith("Invalid record length"));
+            }
+        }
+    }
+}
@@ -5,10 +5,13 @@ import org.junit.Test;
 import semantics.DocumentFeatures;
 import semantics.ExtractionProcess;
 import semantics.DocumentProcessor;
+import semantics.FeatureTags;
+import semantics.LazyDocumentFeatures;
 import semantics.information.InformationPath;
 import semantics.information.InformationExtraction;
 import semantics.information.SemanticGraphUtil;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.stream.Collectors;
@@ -31,6 +34,93 @@ public class FeaturesTests {
         Assert.assertTrue(features.tfIdf.size() > 0);
     }
 
+    @Test
+    public void parallelSentences() {
+        ExtractionProcess process = new ExtractionProcess()
+                .ngrams(2)
+                .partsOfSpeech()
+                .avgWordLength();
+        DocumentProcessor serial = new DocumentProcessor(process.get());
+        DocumentProcessor parallel = new DocumentProcessor(process.parallelSentences(1).get());
+
+        String text = "Oil traded near $57 a barrel. Crude stockpiles fell for a fifth week. " +
+                "Consumers waited for the data. Markets closed early.";
+        DocumentFeatures serialFeatures = serial.processDocument(text);
+        DocumentFeatures parallelFeatures = parallel.processDocument(text);
+
+        Assert.assertEquals(serialFeatures.ngrams, parallelFeatures.ngrams);
+        Assert.assertEquals(serialFeatures.partsOfSpeech, parallelFeatures.partsOfSpeech);
+        Assert.assertEquals(serialFeatures.avgWordLength, parallelFeatures.avgWordLength, 0.0);
+    }
+
+    @Test
+    public void lazyFeatures() {
+        Properties operations = new ExtractionProcess()
+                .tfidf()
+                .relations()
+                .get();
+        DocumentProcessor extractor = new DocumentProcessor(operations)
+                .useDefaultTfIdfScorer();
+
+        String text = "Oil traded near $57 a barrel. Crude stockpiles fell for a fifth week.";
+        LazyDocumentFeatures lazy = extractor.processDocumentLazily(text);
+        DocumentFeatures eager = extractor.processDocument(text);
+
+        Assert.assertNull(lazy.getNgrams()); // not requested
+        Assert.assertEquals(eager.tfIdf.size(), lazy.getTfIdf().size());
+        Assert.assertSame(lazy.getTfIdf(), lazy.getTfIdf()); // computed only once
+        Assert.assertEquals(2, (int) lazy.getNumSentences());
+    }
+
+    @Test
+    public void emptyDocument() {
+        Properties operations = new ExtractionProcess()
+                .normalizeTweets()
+                .avgWordLength()
+                .get();
+        operations.setProperty(FeatureTags.AVG_SENTENCE_LENGTH, "");
+        DocumentProcessor extractor = new DocumentProcessor(operations);
+
+        /* no sentences */
+        DocumentFeatures eager = extractor.processDocument("");
+        DocumentFeatures lazy = extractor.processDocumentLazily("").toDocumentFeatures();
+
+        Assert.assertEquals(0, (int) eager.numSentences);
+        Assert.assertNull(eager.avgWordLength);
+        Assert.assertNull(eager.avgWordsPerSentence);
+        Assert.assertNull(lazy.avgWordLength);
+        Assert.assertNull(lazy.avgWordsPerSentence);
+
+        /* a sentence left without words */
+        eager = extractor.processDocument("@oil @barrel");
+        lazy = extractor.processDocumentLazily("@oil @barrel").toDocumentFeatures();
+
+        Assert.assertNull(eager.avgWordLength);
+        Assert.assertNull(lazy.avgWordLength);
+        Assert.assertEquals(0.0, eager.avgWordsPerSentence, 0.0);
+        Assert.assertEquals(0.0, lazy.avgWordsPerSentence, 0.0);
+    }
+
+    @Test
+    public void batchKeepsOrder() {
+        Properties operations = new ExtractionProcess()
+                .tfidf()
+                .get();
+        DocumentProcessor extractor = new DocumentProcessor(operations)
+                .useDefaultTfIdfScorer()
+                .setParallelism(2)
+                .setMaxInFlight(2);
+
+        List<String> texts = Arrays.asList("Oil traded near $57.", "Crude stockpiles fell.",
+                "Consumers waited.", "Markets closed early.");
+        List<DocumentFeatures> features = extractor.processDocuments(texts);
+
+        Assert.assertEquals(texts.size(), features.size());
+        for (int i = 0; i < texts.size(); i++) {
+            Assert.assertEquals(texts.get(i).split(" ")[0], features.get(i).tfIdf.get(0).term);
+        }
+    }
+
     @Test
     public void relations() {
         Properties operations = new ExtractionProcess()
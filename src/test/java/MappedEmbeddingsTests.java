@@ -0,0 +1,274 @@
+import org.junit.Assert;
+import org.junit.Test;
+import semantics.embeddings.CachedEmbeddings;
+import semantics.embeddings.EmbeddingsConverter;
+import semantics.embeddings.EmbeddingsWriter;
+import semantics.embeddings.Encoding;
+import semantics.embeddings.MappedEmbeddings;
+import semantics.embeddings.NormalizedEmbeddings;
+import semantics.embeddings.QuantizationReport;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class MappedEmbeddingsTests {
+
+    @Test
+    public void writeAndMap() throws Exception {
+        Path file = Files.createTempFile("embeddings", ".bin");
+
+        try (EmbeddingsWriter writer = new EmbeddingsWriter(file, 3)) {
+            writer.add("oil", new float[] { 1f, 2f, 3f });
+            writer.add("barrel", new float[] { 4f, 5f, 6f });
+            writer.add("été", new float[] { 7f, 8f, 9f });
+            writer.add("oil", new float[] { 0f, 0f, 0f }); // ignored, already added
+        }
+
+        MappedEmbeddings embeddings = MappedEmbeddings.open(file);
+
+        Assert.assertEquals(3, embeddings.size());
+        Assert.assertEquals(3, embeddings.dimension());
+        Assert.assertTrue(embeddings.contains("été"));
+        Assert.assertFalse(embeddings.contains("crude"));
+        Assert.assertNull(embeddings.vector("crude"));
+        Assert.assertArrayEquals(new double[] { 1, 2, 3 }, embeddings.vector("oil"), 0.0);
+
+        double[] sum = new double[3];
+        embeddings.addTo("barrel", 2.0, sum);
+        embeddings.addTo("été", 1.0, sum);
+        Assert.assertArrayEquals(new double[] { 15, 18, 21 }, sum, 0.0);
+
+        List<String> words = new ArrayList<>();
+        embeddings.words().forEach(words::add);
+        Assert.assertEquals(3, words.size());
+        Assert.assertTrue(words.contains("barrel"));
+
+        Files.delete(file);
+    }
+
+    @Test
+    public void convertGloVe() throws Exception {
+        Path text = Files.createTempFile("glove", ".txt");
+        Path file = Files.createTempFile("glove", ".emb");
+        Files.write(text, Arrays.asList("the 0.5 -1 2", "oil 1e-2 3 4.25"), StandardCharsets.UTF_8);
+
+        Assert.assertEquals(2, EmbeddingsConverter.convertGloVe(text, file));
+
+        MappedEmbeddings embeddings = MappedEmbeddings.open(file);
+        Assert.assertEquals(3, embeddings.dimension());
+        Assert.assertArrayEquals(new double[] { 0.5, -1, 2 }, embeddings.vector("the"), 0.0);
+        Assert.assertArrayEquals(new double[] { 0.01, 3, 4.25 }, embeddings.vector("oil"), 1e-6);
+
+        Files.delete(text);
+        Files.delete(file);
+    }
+
+    @Test
+    public void convertGloVeWordsWithSpaces() throws Exception {
+        Path text = Files.createTempFile("glove", ".txt");
+        Path file = Files.createTempFile("glove", ".emb");
+        Files.write(text, Arrays.asList("new york 0.5 1 ", ". . . 2 3", "the -1 -2"), StandardCharsets.UTF_8);
+
+        Assert.assertEquals(3, EmbeddingsConverter.convertGloVe(text, file));
+
+        MappedEmbeddings embeddings = MappedEmbeddings.open(file);
+        Assert.assertEquals(2, embeddings.dimension());
+        Assert.assertArrayEquals(new double[] { 0.5, 1 }, embeddings.vector("new york"), 0.0);
+        Assert.assertArrayEquals(new double[] { 2, 3 }, embeddings.vector(". . ."), 0.0);
+        Assert.assertArrayEquals(new double[] { -1, -2 }, embeddings.vector("the"), 0.0);
+
+        /* lines not matching the dimension */
+        for (String line : Arrays.asList("oil 1 2 3", "oil 1", "1 2")) {
+            Files.write(text, Arrays.asList("the 0.5 1", line), StandardCharsets.UTF_8);
+            try {
+                EmbeddingsConverter.convertGloVe(text, file);
+                Assert.fail(line);
+            } catch (IOException ex) {
+                Assert.assertTrue(ex.getMessage().startsWith("line 2: "));
+            }
+        }
+
+        Files.delete(text);
+        Files.delete(file);
+    }
+
+    @Test
+    public void convertWord2vec() throws Exception {
+        Path binary = Files.createTempFile("word2vec", ".bin");
+        Path file = Files.createTempFile("word2vec", ".emb");
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(binary))) {
+            out.write("2 2\n".getBytes(StandardCharsets.UTF_8));
+            writeWord2vecRow(out, "oil", 1f, 2f);
+            out.write('\n');
+            writeWord2vecRow(out, "barrel", 3f, 4f);
+        }
+
+        Assert.assertEquals(2, EmbeddingsConverter.convertWord2vec(binary, file));
+
+        MappedEmbeddings embeddings = MappedEmbeddings.open(file);
+        Assert.assertArrayEquals(new double[] { 1, 2 }, embeddings.vector("oil"), 0.0);
+        Assert.assertArrayEquals(new double[] { 3, 4 }, embeddings.vector("barrel"), 0.0);
+
+        Files.delete(binary);
+        Files.delete(file);
+    }
+
+    private static void writeWord2vecRow(DataOutputStream out, String word, float... values) throws Exception {
+        out.write((word + " ").getBytes(StandardCharsets.UTF_8));
+        ByteBuffer row = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : values) {
+            row.putFloat(value);
+        }
+        out.write(row.array());
+    }
+
+    @Test
+    public void quantize() throws Exception {
+        Path file = Files.createTempFile("embeddings", ".emb");
+        Random random = new Random(3);
+
+        try (EmbeddingsWriter writer = new EmbeddingsWriter(file, 50)) {
+            float[] vector = new float[50];
+            for (int word = 0; word < 100; word++) {
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) random.nextGaussian();
+                }
+                writer.add("word" + word, vector);
+            }
+        }
+
+        MappedEmbeddings baseline = MappedEmbeddings.open(file);
+
+        for (Encoding encoding : new Encoding[] { Encoding.INT8, Encoding.FLOAT16 }) {
+            Path quantizedFile = Files.createTempFile("embeddings", ".emb");
+            EmbeddingsWriter.write(baseline, quantizedFile, encoding);
+
+            MappedEmbeddings quantized = MappedEmbeddings.open(quantizedFile);
+            QuantizationReport report = QuantizationReport.compare(baseline, quantized);
+
+            Assert.assertEquals(encoding, quantized.encoding());
+            Assert.assertEquals(100, report.words);
+            Assert.assertTrue(report.toString(), report.minCosine > 0.999);
+            Assert.assertTrue(quantized.matrixBytes() * 2 <= baseline.matrixBytes());
+
+            Files.delete(quantizedFile);
+        }
+
+        Files.delete(file);
+    }
+
+    @Test
+    public void halfFloatsKeepExactValues() throws Exception {
+        Path file = Files.createTempFile("embeddings", ".emb");
+
+        try (EmbeddingsWriter writer = new EmbeddingsWriter(file, 4, Encoding.FLOAT16)) {
+            writer.add("oil", new float[] { 0.5f, -2f, 65504f, 0x1p-24f });
+        }
+
+        Assert.assertArrayEquals(new double[] { 0.5, -2, 65504, 0x1p-24 },
+                MappedEmbeddings.open(file).vector("oil"), 0.0);
+
+        Files.delete(file);
+    }
+
+    @Test
+    public void cacheRows() throws Exception {
+        Path file = Files.createTempFile("embeddings", ".emb");
+
+        try (EmbeddingsWriter writer = new EmbeddingsWriter(file, 2)) {
+            for (int word = 0; word < 1000; word++) {
+                writer.add("word" + word, new float[] { word, -word });
+            }
+        }
+
+        CachedEmbeddings cache = new CachedEmbeddings(MappedEmbeddings.open(file), 64);
+
+        Assert.assertArrayEquals(new double[] { 7, -7 }, cache.vector("word7"), 0.0);
+        Assert.assertArrayEquals(new double[] { 7, -7 }, cache.vector("word7"), 0.0);
+        Assert.assertNull(cache.vector("crude"));
+        Assert.assertNull(cache.vector("crude")); // misses are cached too
+
+        Assert.assertEquals(2, cache.hits());
+        Assert.assertEquals(2, cache.misses());
+
+        // membership checks aren't fetches
+        Assert.assertTrue(cache.contains("word8"));
+        Assert.assertFalse(cache.contains("crude"));
+        Assert.assertEquals(2, cache.hits());
+        Assert.assertEquals(2, cache.misses());
+        Assert.assertEquals(2, cache.cachedWords());
+
+        // a frequent word survives a scan over the whole vocabulary
+        for (int word = 0; word < 1000; word++) {
+            cache.vector("word" + word);
+            cache.vector("word7");
+        }
+
+        Assert.assertTrue(cache.cachedWords() <= 64);
+        Assert.assertTrue(cache.evictions() > 0);
+
+        long misses = cache.misses();
+        cache.vector("word7");
+        Assert.assertEquals(misses, cache.misses());
+
+        Files.delete(file);
+    }
+
+    @Test
+    public void normalizedFallback() throws Exception {
+        Path file = Files.createTempFile("embeddings", ".emb");
+
+        try (EmbeddingsWriter writer = new EmbeddingsWriter(file, 1)) {
+            writer.add("The", new float[] { 2f });
+            writer.add("the", new float[] { 1f });
+            writer.add("cafe", new float[] { 3f });
+            writer.add("Paris", new float[] { 4f });
+        }
+
+        NormalizedEmbeddings embeddings = new NormalizedEmbeddings(MappedEmbeddings.open(file));
+
+        Assert.assertEquals("the", embeddings.resolve("THE"));
+        Assert.assertEquals("The", embeddings.resolve("The"));
+        Assert.assertArrayEquals(new double[] { 3 }, embeddings.vector("Café"), 0.0);
+        Assert.assertArrayEquals(new double[] { 4 }, embeddings.vector("#paris"), 0.0);
+        Assert.assertNull(embeddings.vector("crude"));
+
+        Assert.assertEquals(3, embeddings.lookups());
+        Assert.assertEquals(2, embeddings.fallbacks());
+        Assert.assertEquals(1.0 / 3, embeddings.outOfVocabularyRate(), 1e-9);
+
+        Files.delete(file);
+    }
+
+    @Test
+    public void normalizeWords() {
+        Assert.assertEquals("paris", NormalizedEmbeddings.normalize("#Paris"));
+        Assert.assertEquals("paris", NormalizedEmbeddings.normalize("#paris"));
+        Assert.assertEquals("cafe", NormalizedEmbeddings.normalize("#CAFÉ"));
+        Assert.assertEquals("", NormalizedEmbeddings.normalize("#"));
+
+        String word = "oil";
+        Assert.assertSame(word, NormalizedEmbeddings.normalize(word));
+
+        // doesn't depend on the default locale, where "I" could become a dotless "ı"
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            Assert.assertEquals("oil price", NormalizedEmbeddings.normalize("OIL PRICE"));
+            Assert.assertEquals("cafe in", NormalizedEmbeddings.normalize("CAFÉ IN"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -1,13 +1,23 @@
 
 import edu.stanford.nlp.simple.Sentence;
+import edu.stanford.nlp.simple.Token;
 import org.junit.Test;
 import org.junit.Assert;
 
+import semantics.DocumentFeatures;
+import semantics.DocumentProcessor;
+import semantics.ExtractionProcess;
+import semantics.FeatureTags;
 import semantics.LazyPreprocess;
 import semantics.Preprocess;
+import semantics.Sentiment;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.function.UnaryOperator;
 
 public class PreprocessTests {
 
@@ -30,6 +40,20 @@ public class PreprocessTests {
         Assert.assertNull(sentence);
     }
 
+    @Test
+    public void tokenViews() {
+        Sentence sentence = new Sentence("The dogs were running #home @you");
+        List<Token> tokens = Preprocess.normalizeTweet(Preprocess.lemmatize(sentence.tokens()));
+
+        Assert.assertEquals(5, tokens.size());
+        Assert.assertEquals("dog", tokens.get(1).word());
+        Assert.assertEquals("be", tokens.get(2).word());
+        Assert.assertEquals("home", tokens.get(4).word());
+
+        // the tags still come from the original sentence
+        Assert.assertEquals("NNS", tokens.get(1).posTag());
+    }
+
     @Test
     public void lazyPreprocess() {
         Sentence normal = new Sentence("John went to the pub, it's all good #blessed @johnoliver https://t.wink");
@@ -56,4 +80,71 @@ public class PreprocessTests {
         Assert.assertTrue(punctuationProcessed.isPresent());
         Assert.assertEquals(2, punctuationProcessed.get().tokens().size());
     }
-} 
+
+    /**
+     * Runs a processor and records the pre-processed text of every
+     * sentence which wasn't dropped, through the sentiment scorer.
+     */
+    private static DocumentFeatures process(ExtractionProcess process, String text, List<String> sentences) {
+        Properties operations = process.ngrams(1)
+                .containsQuotes()
+                .containsIncompleteQuotes()
+                .get();
+        operations.setProperty(FeatureTags.SENTIMENT, "");
+
+        return new DocumentProcessor(operations)
+                .setSentimentScorer(sentence -> {
+                    sentences.add(sentence);
+                    return Sentiment.Neutral;
+                })
+                .processDocument(text);
+    }
+
+    @Test
+    public void lazyMatchesEager() {
+        List<String> documents = Arrays.asList(
+                "Hey @you, check https://t.co/x #np # now! @you https://t.co/y",
+                "He said \"hi\" to me.",
+                "He said \"hi to me.",
+                "Bill Gates founded Microsoft. He's rich and he'd been there. He's going home.",
+                "I'm sure they've seen it, @him 's here and she'd @you gone.",
+                "!",
+                "Stop. ! Go."
+        );
+        List<UnaryOperator<ExtractionProcess>> configurations = Arrays.asList(
+                process -> process.normalizeTweets().removePunctuation(),
+                process -> process.lemmatize().normalizeTweets().removePunctuation(),
+                process -> process.resolveCorefs().normalizeTweets(),
+                process -> process.resolveCorefs().lemmatize().removePunctuation(),
+                ExtractionProcess::removePunctuation
+        );
+
+        for (int i = 0; i < configurations.size(); i++) {
+            for (String text : documents) {
+                ExtractionProcess eager = configurations.get(i).apply(new ExtractionProcess());
+                ExtractionProcess lazy = configurations.get(i).apply(new ExtractionProcess().lazyPreprocess());
+
+                List<String> eagerSentences = new ArrayList<>();
+                List<String> lazySentences = new ArrayList<>();
+                DocumentFeatures eagerFeatures = process(eager, text, eagerSentences);
+                DocumentFeatures lazyFeatures = process(lazy, text, lazySentences);
+
+                String message = "configuration " + i + ": " + text;
+                Assert.assertEquals(message, eagerSentences, lazySentences); // same tokens and dropped sentences
+                Assert.assertEquals(message, eagerFeatures.ngrams, lazyFeatures.ngrams); // same tokens after punctuations
+                Assert.assertEquals(message, eagerFeatures.containsQuotes, lazyFeatures.containsQuotes);
+                Assert.assertEquals(message, eagerFeatures.containsIncompleteQuotes, lazyFeatures.containsIncompleteQuotes);
+            }
+        }
+    }
+
+    @Test
+    public void punctuationOnlySentence() {
+        List<String> sentences = new ArrayList<>();
+        DocumentFeatures features = process(new ExtractionProcess().removePunctuation().lazyPreprocess(), "!", sentences);
+
+        // removing punctuations doesn't drop a sentence, only normalizing tweets does
+        Assert.assertEquals(Arrays.asList("!"), sentences);
+        Assert.assertTrue(features.ngrams.isEmpty());
+    }
+}
@@ -0,0 +1,214 @@
+import org.junit.Assert;
+import org.junit.Test;
+import semantics.DocumentProcessor;
+import semantics.ExtractionProcess;
+import semantics.StreamingProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class StreamingProcessorTests {
+
+    /**
+     * Splits documents like the default breaker, but fails
+     * on the ones containing "broken".
+     */
+    private static DocumentProcessor processor() {
+        return new DocumentProcessor(document -> {
+            if (document.text().contains("broken"))
+                throw new IllegalArgumentException("Can't split " + document.text());
+            return document.sentences();
+        }, new ExtractionProcess().get());
+    }
+
+    private static String document(int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            text.append("Sentence number ").append(i).append(". ");
+        }
+        return text.toString();
+    }
+
+    @Test(timeout = 60000)
+    public void everyDocumentReachesTheSink() throws InterruptedException {
+        List<Integer> sentences = Collections.synchronizedList(new ArrayList<>());
+
+        StreamingProcessor<Integer> stream = new StreamingProcessor<>(processor(),
+                features -> features.numSentences, sentences::add)
+                .setParallelism(3)
+                .setBufferSize(2)
+                .start();
+
+        for (int i = 1; i <= 20; i++) {
+            stream.submit(document(i % 4 + 1));
+        }
+        stream.close(); // returns only once the end went through every worker
+
+        Assert.assertEquals(20, sentences.size());
+        Assert.assertEquals(5, Collections.frequency(sentences, 1));
+        Assert.assertEquals(5, Collections.frequency(sentences, 4));
+    }
+
+    @Test(timeout = 60000)
+    public void failuresAreDropped() throws InterruptedException {
+        List<Integer> sentences = Collections.synchronizedList(new ArrayList<>());
+
+        StreamingProcessor<Integer> stream = new StreamingProcessor<>(processor(),
+                features -> {
+                    if (features.numSentences == 3)
+                        throw new IllegalStateException("Can't serialize");
+                    return features.numSentences;
+                },
+                count -> {
+                    if (count == 2)
+                        throw new IllegalStateException("Can't write");
+                    sentences.add(count);
+                })
+                .setParallelism(2)
+                .setBufferSize(1)
+                .start();
+
+        // more failures than the buffers can hold
+        for (int i = 0; i < 10; i++) {
+            stream.submit("A broken document.");
+            stream.submit(document(1));
+            stream.submit(document(2));
+            stream.submit(document(3));
+        }
+        stream.close();
+
+        Assert.assertEquals(Collections.nCopies(10, 1), sentences);
+    }
+
+    @Test(timeout = 60000)
+    public void fullStreamBlocks() throws InterruptedException {
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> sentences = Collections.synchronizedList(new ArrayList<>());
+
+        StreamingProcessor<Integer> stream = new StreamingProcessor<>(processor(),
+                features -> features.numSentences,
+                count -> {
+                    stuck.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    sentences.add(count);
+                })
+                .setBufferSize(1)
+                .start();
+
+        // once a document went all the way through, the stages are warmed up
+        stream.submit(document(1));
+        stuck.await();
+
+        // every queue and worker holds at most one document while the sink is stuck
+        int accepted = 1;
+        while (stream.offer(document(1), 500, TimeUnit.MILLISECONDS)) {
+            accepted++;
+            Assert.assertTrue(accepted < 100);
+        }
+
+        Thread submitter = new Thread(() -> {
+            try {
+                stream.submit(document(1));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        submitter.start();
+        submitter.join(500);
+        Assert.assertTrue(submitter.isAlive());
+
+        release.countDown();
+        submitter.join();
+        stream.close();
+
+        Assert.assertEquals(accepted + 1, sentences.size());
+    }
+
+    @Test(timeout = 60000)
+    public void errorsFailTheStream() throws InterruptedException {
+        StreamingProcessor<Integer> stream = new StreamingProcessor<Integer>(processor(),
+                features -> {
+                    throw new AssertionError("Can't serialize at all");
+                },
+                count -> {})
+                .setBufferSize(1)
+                .start();
+
+        // the only serializer died, so the stream stops instead of blocking for good
+        try {
+            for (int i = 0; i < 100; i++) {
+                stream.submit(document(1));
+            }
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("Can't serialize at all", ex.getCause().getMessage());
+        }
+
+        try {
+            stream.close();
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getCause() instanceof AssertionError);
+        }
+    }
+
+    @Test
+    public void closedStreamRejectsDocuments() throws InterruptedException {
+        StreamingProcessor<Integer> stream = new StreamingProcessor<>(processor(),
+                features -> features.numSentences, count -> {})
+                .start();
+
+        stream.submit(document(1));
+        stream.close();
+        stream.close(); // nothing to do
+
+        try {
+            stream.submit(document(1));
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+
+        try {
+            stream.offer(document(1), 1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void invalidConfiguration() throws InterruptedException {
+        StreamingProcessor<Integer> stream = new StreamingProcessor<>(processor(),
+                features -> features.numSentences, count -> {});
+
+        try {
+            stream.setParallelism(StreamingProcessor.Stage.SERIALIZE, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+
+        try {
+            stream.submit(document(1));
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+
+        try {
+            stream.close();
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import edu.stanford.nlp.simple.Sentence;
+import edu.stanford.nlp.simple.Token;
+import org.junit.Assert;
+import org.junit.Test;
+import semantics.IntIntMap;
+import semantics.LexicalFeatures;
+import semantics.TermDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class TermDictionaryTests {
+
+    @Test
+    public void internTerms() {
+        TermDictionary dictionary = new TermDictionary(2);
+
+        int oil = dictionary.intern("oil");
+        int barrel = dictionary.intern("barrel");
+
+        Assert.assertEquals(0, oil);
+        Assert.assertEquals(1, barrel);
+        Assert.assertEquals(oil, dictionary.intern("oil"));
+        Assert.assertEquals(-1, dictionary.id("crude"));
+        Assert.assertEquals("barrel", dictionary.term(barrel));
+
+        // enough terms to resize the table a few times
+        for (int i = 0; i < 1000; i++) {
+            dictionary.intern("term" + i);
+        }
+
+        Assert.assertEquals(1002, dictionary.size());
+        Assert.assertEquals(oil, dictionary.id("oil"));
+        Assert.assertEquals("term999", dictionary.term(dictionary.id("term999")));
+    }
+
+    @Test
+    public void countInts() {
+        IntIntMap counts = new IntIntMap(2);
+
+        for (int i = 0; i < 100; i++) {
+            counts.increment(i % 10, 1);
+        }
+
+        Assert.assertEquals(10, counts.size());
+        Assert.assertEquals(10, counts.get(3, 0));
+        Assert.assertEquals(-1, counts.get(42, -1));
+        Assert.assertTrue(counts.containsKey(9));
+
+        counts.clear();
+        Assert.assertEquals(0, counts.size());
+        Assert.assertFalse(counts.containsKey(9));
+    }
+
+    @Test
+    public void countNgrams() {
+        TermDictionary dictionary = new TermDictionary();
+        Map<String, Integer> counts = LexicalFeatures.countNgrams(
+                new Sentence("oil price oil price up").tokens(), 2, dictionary);
+
+        Assert.assertEquals(Arrays.asList("oil_price", "price_oil", "price_up"), new ArrayList<>(counts.keySet()));
+        Assert.assertEquals(2, (int) counts.get("oil_price"));
+        Assert.assertEquals(1, (int) counts.get("price_up"));
+
+        // only the terms are interned
+        Assert.assertEquals(3, dictionary.size());
+        LexicalFeatures.countNgrams(new Sentence("up oil up price").tokens(), 2, dictionary);
+        Assert.assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    public void ngramsWithDictionary() {
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < 32; i++) {
+            dictionary.intern("t" + i);
+        }
+
+        // the ids of t0_t31 and t1_t0 have the same hash
+        List<Token> tokens = new Sentence("t0 t31 t1 t0 t31 t1 t0").tokens();
+        List<String> ngrams = LexicalFeatures.ngrams(tokens, 2, dictionary);
+
+        Assert.assertEquals(LexicalFeatures.ngrams(tokens, 2), ngrams);
+        Assert.assertSame(ngrams.get(0), ngrams.get(3)); // built once
+
+        Map<String, Integer> counts = LexicalFeatures.countNgrams(tokens, 2, dictionary);
+        Assert.assertEquals(Arrays.asList("t0_t31", "t31_t1", "t1_t0"), new ArrayList<>(counts.keySet()));
+        Assert.assertEquals(Arrays.asList(2, 2, 2), new ArrayList<>(counts.values()));
+
+        Assert.assertTrue(LexicalFeatures.ngrams(new Sentence("t0").tokens(), 2, dictionary).isEmpty());
+    }
+}
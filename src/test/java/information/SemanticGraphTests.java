@@ -1,10 +1,25 @@
 package information;
 
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+import edu.stanford.nlp.semgraph.SemanticGraphFactory;
+import edu.stanford.nlp.simple.Sentence;
 import org.junit.Assert;
 import org.junit.Test;
+import semantics.information.CompactGraph;
+import semantics.information.DocumentInformation;
+import semantics.information.ExtractionPattern;
+import semantics.information.ExtractionPatterns;
+import semantics.information.InformationExtraction;
+import semantics.information.InformationExtractor;
+import semantics.information.InformationPath;
 import semantics.information.InformationUtil;
+import semantics.information.RelationMatcher;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class SemanticGraphTests {
 
@@ -21,4 +36,136 @@ public class SemanticGraphTests {
         Assert.assertTrue(InformationUtil.equalsAny("nnp", Arrays.asList("xcomp", "nnp")));
         Assert.assertFalse(InformationUtil.equalsAny("nsubj", Arrays.asList("xcomp", "nnp")));
     }
-} 
+
+    @Test
+    public void relationMatcher() {
+        RelationMatcher compoundsAndNouns = RelationMatcher.of("comp", "nn");
+        RelationMatcher objects = RelationMatcher.of("subj", "obj");
+
+        /* the same as contains any */
+        Assert.assertTrue(compoundsAndNouns.matches("xcomp"));
+        Assert.assertTrue(compoundsAndNouns.matches("nnp"));
+        Assert.assertTrue(objects.matches("dobj"));
+        Assert.assertFalse(compoundsAndNouns.matches("nsubj"));
+
+        /* labels interned before a fragment is known still match it */
+        Assert.assertFalse(objects.matches("nmod:tmod"));
+        Assert.assertTrue(RelationMatcher.of("tmod").matches("nmod:tmod"));
+
+        long mask = RelationMatcher.mask("nsubjpass");
+        Assert.assertTrue(objects.matches(mask));
+        Assert.assertFalse(compoundsAndNouns.matches(mask));
+    }
+
+    @Test
+    public void compactGraph() {
+        SemanticGraph graph = new Sentence("Bill Gates, the founder of Microsoft, moved the company from Albuquerque to Seattle.")
+                .dependencyGraph(SemanticGraphFactory.Mode.ENHANCED);
+        CompactGraph compact = CompactGraph.of(graph);
+
+        Assert.assertEquals(graph.vertexListSorted().size(), compact.size());
+
+        List<SemanticGraphEdge> edges = new ArrayList<>();
+        graph.edgeIterable().forEach(edges::add);
+        Assert.assertEquals(edges.size(), compact.edgeCount());
+        for (int edge = 0; edge < compact.edgeCount(); edge++)
+            Assert.assertSame(edges.get(edge), compact.edge(edge));
+
+        for (IndexedWord word : graph.vertexListSorted()) {
+            int node = compact.node(word);
+            Assert.assertEquals(word, compact.word(node));
+
+            List<SemanticGraphEdge> outgoing = new ArrayList<>();
+            for (int i = compact.outgoingStart(node); i < compact.outgoingEnd(node); i++)
+                outgoing.add(compact.edge(compact.outgoingEdge(i)));
+            Assert.assertEquals(graph.outgoingEdgeList(word), outgoing);
+
+            List<IndexedWord> children = new ArrayList<>();
+            for (int i = compact.childStart(node); i < compact.childEnd(node); i++) {
+                IndexedWord child = compact.word(compact.child(i));
+                children.add(child);
+                Assert.assertSame(graph.getEdge(word, child), compact.edge(compact.childEdge(i)));
+            }
+            Assert.assertEquals(graph.getChildList(word), children);
+        }
+    }
+
+    @Test
+    public void extractDocuments() {
+        InformationExtractor extractor = new InformationExtractor().setParallelism(2);
+        String text = "Bill Gates founded Microsoft. The company moved to Seattle.";
+
+        DocumentInformation document = extractor.extract(text);
+        Assert.assertEquals(2, document.sentences.size());
+        Assert.assertEquals("Bill Gates founded Microsoft.", document.sentenceText(document.sentences.get(0)));
+        Assert.assertEquals("The company moved to Seattle.", document.sentenceText(document.sentences.get(1)));
+        Assert.assertEquals(1, document.sentences.get(1).index);
+        Assert.assertEquals(5, document.sentences.get(1).tokenOffsetBegin);
+        Assert.assertFalse(document.sentences.get(0).paths.isEmpty());
+        Assert.assertNull(document.sentences.get(0).relations);
+
+        List<String> texts = Arrays.asList(text, "Lucy is in Chicago.", "John went to the pub.");
+        List<DocumentInformation> documents = extractor.extractAll(texts);
+        Assert.assertEquals(texts.size(), documents.size());
+        for (int i = 0; i < texts.size(); i++)
+            Assert.assertEquals(texts.get(i), documents.get(i).text);
+    }
+
+    @Test
+    public void linkAcrossSentences() {
+        DocumentInformation document = new InformationExtractor()
+                .corefs()
+                .extract("Bill Gates founded Microsoft. He moved to Seattle.");
+
+        List<InformationPath> first = document.sentences.get(0).paths;
+        List<InformationPath> second = document.sentences.get(1).paths;
+
+        // "He" is "Bill Gates", so the first sentence has more information in the second
+        Assert.assertTrue(first.stream().anyMatch(path -> path.auxPaths.stream().anyMatch(second::contains)));
+        // but links never point back
+        Assert.assertFalse(second.stream().anyMatch(path -> path.auxPaths.stream().anyMatch(first::contains)));
+    }
+
+    @Test
+    public void extractionPatterns() {
+        /* the default rules, by priority */
+        List<ExtractionPattern> defaults = ExtractionPatterns.defaults().patterns();
+        Assert.assertEquals(4, defaults.size());
+        Assert.assertEquals(ExtractionPattern.Action.SUBJECT, defaults.get(0).action());
+        Assert.assertEquals(ExtractionPattern.Action.OBJECT, defaults.get(1).action());
+
+        ExtractionPatterns patterns = ExtractionPatterns.parse(
+                "# only verbs and their complements\n" +
+                "\n" +
+                "[predicate tag~VB] >xcomp [object tag!~VB] => complement # no subject\n");
+        Assert.assertEquals(1, patterns.patterns().size());
+        Assert.assertEquals(ExtractionPattern.Action.COMPLEMENT, patterns.patterns().get(0).action());
+
+        SemanticGraph graph = new Sentence("Mary wants peace.").dependencyGraph(SemanticGraphFactory.Mode.ENHANCED);
+        List<InformationPath> paths = InformationExtraction.findSimpleInformationPaths(CompactGraph.of(graph),
+                ExtractionPatterns.parse("[predicate] >dobj [object] => object"));
+        Assert.assertEquals(1, paths.size());
+        Assert.assertEquals("peace", InformationUtil.indexWordsToString(paths.get(0).object));
+
+        /* rule sets keep their relations to themselves, so loading many of them doesn't run out */
+        for (int i = 0; i < 100; i++) {
+            ExtractionPatterns.parse("[predicate] >custom" + i + "|obj [object] => object");
+        }
+        Assert.assertEquals(1, InformationExtraction.findSimpleInformationPaths(CompactGraph.of(graph),
+                ExtractionPatterns.parse("[predicate] >custom99|obj [object] => object")).size());
+
+        /* invalid rules */
+        for (String rule : Arrays.asList("[verb] >subj [subject] => subject",
+                "[predicate] >subj [subject] => predicate",
+                "[predicate] >subj [object] => subject",
+                "[predicate tag=VB] >subj [subject] => subject",
+                "[predicate] subj [subject]")) {
+            try {
+                ExtractionPatterns.parse(rule);
+                Assert.fail(rule);
+            } catch (IllegalArgumentException ex) {
+                Assert.assertTrue(ex.getMessage().startsWith("line 1: "));
+            }
+        }
+    }
+}
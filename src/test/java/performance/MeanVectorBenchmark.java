@@ -0,0 +1,98 @@
+package performance;
+
+import edu.stanford.nlp.simple.Sentence;
+import edu.stanford.nlp.simple.Token;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import semantics.DocumentProcessor;
+import semantics.DocumentVectors;
+import semantics.embeddings.EmbeddingsWriter;
+import semantics.embeddings.MappedEmbeddings;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the mean vector of a document computed through the entry
+ * points of DocumentVectors: the old one, which gathers the found
+ * vectors into a matrix then reads it one element at a time, the
+ * new one over a DL4J model, which adds the rows natively, and the
+ * one over memory-mapped embeddings, which adds them into an array.
+ */
+@State(Scope.Thread)
+public class MeanVectorBenchmark {
+    final static int VOCABULARY = 10000;
+    final static int DIMENSION = 300;
+
+    Path textFile;
+    Path mappedFile;
+    WordVectors model;
+    MappedEmbeddings embeddings;
+    List<String> words;
+    List<Token> tokens;
+
+    @Setup(Level.Trial)
+    public void init() throws Exception {
+        Random random = new Random(42);
+        textFile = Files.createTempFile("benchmark", ".txt");
+        mappedFile = Files.createTempFile("benchmark", ".emb");
+
+        // the same vectors in both formats
+        try (BufferedWriter text = Files.newBufferedWriter(textFile, StandardCharsets.UTF_8);
+             EmbeddingsWriter mapped = new EmbeddingsWriter(mappedFile, DIMENSION)) {
+            float[] vector = new float[DIMENSION];
+            for (int word = 0; word < VOCABULARY; word++) {
+                text.write("word" + word);
+                for (int i = 0; i < DIMENSION; i++) {
+                    vector[i] = (float) random.nextGaussian();
+                    text.write(" " + vector[i]);
+                }
+                text.newLine();
+                mapped.add("word" + word, vector);
+            }
+        }
+
+        model = DocumentProcessor.defaultGloVeLoader.loadModel(textFile.toString());
+        embeddings = MappedEmbeddings.open(mappedFile);
+
+        // a document of 200 tokens, a tenth of them out of vocabulary
+        words = new ArrayList<>();
+        for (int token = 0; token < 200; token++) {
+            words.add(token % 10 == 0 ? "oov" + token : "word" + random.nextInt(VOCABULARY));
+        }
+        tokens = new Sentence(words).tokens();
+    }
+
+    @TearDown(Level.Trial)
+    public void clean() throws Exception {
+        Files.deleteIfExists(textFile);
+        Files.deleteIfExists(mappedFile);
+    }
+
+    @Benchmark
+    @Fork(value = 1, warmups = 2)
+    @BenchmarkMode(Mode.AverageTime)
+    public void wordsMatrixMean(Blackhole blackhole) {
+        blackhole.consume(DocumentVectors.getMeanVectors(words, model));
+    }
+
+    @Benchmark
+    @Fork(value = 1, warmups = 2)
+    @BenchmarkMode(Mode.AverageTime)
+    public void tokensModelMean(Blackhole blackhole) {
+        blackhole.consume(DocumentVectors.getMeanVectorsFromTokens(tokens, model));
+    }
+
+    @Benchmark
+    @Fork(value = 1, warmups = 2)
+    @BenchmarkMode(Mode.AverageTime)
+    public void tokensMappedMean(Blackhole blackhole) {
+        blackhole.consume(DocumentVectors.getMeanVectorsFromTokens(tokens, embeddings));
+    }
+}
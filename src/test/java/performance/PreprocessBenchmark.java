@@ -0,0 +1,52 @@
+package performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import semantics.DocumentProcessor;
+import semantics.ExtractionProcess;
+
+import java.util.Properties;
+
+@State(Scope.Thread)
+public class PreprocessBenchmark {
+    DocumentProcessor eager;
+    DocumentProcessor lazy;
+    String text;
+
+    @Setup(Level.Trial)
+    public void init() {
+        Properties eagerOperations = new ExtractionProcess()
+                .lemmatize()
+                .normalizeTweets()
+                .removePunctuation()
+                .ngrams(2)
+                .get();
+        Properties lazyOperations = new ExtractionProcess()
+                .lemmatize()
+                .normalizeTweets()
+                .removePunctuation()
+                .ngrams(2)
+                .lazyPreprocess()
+                .get();
+
+        eager = new DocumentProcessor(eagerOperations);
+        lazy = new DocumentProcessor(lazyOperations);
+        text = "John went to the pub, it's all good #blessed @johnoliver https://t.wink. " +
+                "Russia has been courting Catalan separatists for years, yet it took a declaration of " +
+                "independence and a violent crackdown on the streets of Barcelona for Spain to respond.";
+    }
+
+    @Benchmark
+    @Fork(value = 1, warmups = 2)
+    @BenchmarkMode(Mode.AverageTime)
+    public void eagerPreprocess(Blackhole blackhole) {
+        blackhole.consume(eager.processDocument(text));
+    }
+
+    @Benchmark
+    @Fork(value = 1, warmups = 2)
+    @BenchmarkMode(Mode.AverageTime)
+    public void lazyPreprocess(Blackhole blackhole) {
+        blackhole.consume(lazy.processDocument(text));
+    }
+}
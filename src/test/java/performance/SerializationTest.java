@@ -1,19 +1,54 @@
 package performance;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
-import semantics.DocumentFeatures;
-import semantics.NamedEntity;
+import semantics.*;
 
 import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serializes and deserializes DocumentFeatures in every supported
+ * format, over a tiny document and over a realistic one (300-d
+ * embeddings, hundreds of n-grams and TF-IDF terms). The size of
+ * every format is printed when a trial starts. Run with
+ * "mvn -P benchmark verify", which also profiles allocations.
+ */
 @State(Scope.Thread)
+@Fork(value = 1, warmups = 2)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
 public class SerializationTest {
+    @Param({"small", "realistic"})
+    String payload;
+
     DocumentFeatures features;
+    ObjectNode json;
+    byte[] jsonBytes;
+    byte[] msgpack;
+    byte[] codecMsgpack;
 
-    @Setup(Level.Invocation)
+    @Setup(Level.Trial)
     public void init() {
-        features = new DocumentFeatures();
+        features = payload.equals("small") ? smallDocument() : realisticDocument();
+
+        json = features.toJson();
+        jsonBytes = features.toJsonBytes();
+        msgpack = features.toMsgpackBytes();
+        codecMsgpack = FeaturesMsgpackCodec.encode(features);
+
+        System.out.printf("%n%s payload: JSON %d bytes, MsgPack %d bytes, MsgPack codec %d bytes%n",
+                payload, jsonBytes.length, msgpack.length, codecMsgpack.length);
+    }
+
+    static DocumentFeatures smallDocument() {
+        DocumentFeatures features = new DocumentFeatures();
         features.entities = new ArrayList<>();
         features.partsOfSpeech = new ArrayList<>();
 
@@ -26,33 +61,110 @@ public class SerializationTest {
 
         features.avgWordLength = 5.6321;
         features.containsQuotes = true;
+        return features;
     }
 
+    static DocumentFeatures realisticDocument() {
+        Random random = new Random(42);
+        String[] tags = { "NN", "NNS", "NNP", "JJ", "VB", "VBD", "VBZ", "IN", "DT", "RB", "PRP" };
+
+        DocumentFeatures features = smallDocument();
+        features.ngrams = new ArrayList<>();
+        features.tfIdf = new ArrayList<>();
+        features.relations = new ArrayList<>();
+
+        for (int i = 0; i < 400; i++) {
+            features.ngrams.add("word" + random.nextInt(2000) + " word" + random.nextInt(2000));
+            features.partsOfSpeech.add(tags[random.nextInt(tags.length)]);
+        }
+
+        for (int i = 0; i < 250; i++) {
+            TfIdfTerm term = new TfIdfTerm("term" + i, random.nextDouble() * 4);
+            term.tf = 1 + random.nextInt(5);
+            term.idf = random.nextDouble() * 3;
+            features.tfIdf.add(term);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            features.entities.add(new NamedEntity("Entity " + i, i % 2 == 0 ? "PERSON" : "ORGANIZATION"));
+            features.relations.add(new SpoTuple("subject " + i, "predicate", "object " + i));
+        }
+
+        features.sentiment = Sentiment.Neutral;
+        features.avgWordsPerSentence = 21.4;
+        features.numSentences = 19;
+        features.uniqueWordsCount = 230;
+        features.containsIncompleteQuotes = false;
+        features.word2Vec = vector(random, 300);
+        features.gloVe = vector(random, 300);
+        return features;
+    }
+
+    private static double[] vector(Random random, int dimension) {
+        double[] vector = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = random.nextGaussian();
+        }
+        return vector;
+    }
+
+    /* serialization */
+
     @Benchmark
-    @Fork(value = 1, warmups = 2)
-    @BenchmarkMode(Mode.AverageTime)
     public void toJson(Blackhole blackhole) {
         blackhole.consume(features.toJson());
     }
 
     @Benchmark
-    @Fork(value = 1, warmups = 2)
-    @BenchmarkMode(Mode.AverageTime)
+    public void serializeToJsonBytes(Blackhole blackhole) {
+        blackhole.consume(features.toJsonBytes());
+    }
+
+    @Benchmark
     public void serializeToMsgPack(Blackhole blackhole) {
         blackhole.consume(features.toMsgpackBytes());
     }
 
-    /*@Benchmark
-    @Fork(value = 1, warmups = 2)
-    @BenchmarkMode(Mode.AverageTime)
+    @Benchmark
+    public void serializeWithCodec(Blackhole blackhole) {
+        blackhole.consume(FeaturesMsgpackCodec.encode(features));
+    }
+
+    /* deserialization */
+
+    @Benchmark
+    public void fromJson(Blackhole blackhole) {
+        blackhole.consume(DocumentFeatures.fromJson(json));
+    }
+
+    @Benchmark
     public void deserializeFromJson(Blackhole blackhole) {
-        blackhole.consume(5);
+        blackhole.consume(DocumentFeatures.fromJsonBytes(jsonBytes));
     }
 
     @Benchmark
-    @Fork(value = 1, warmups = 2)
-    @BenchmarkMode(Mode.AverageTime)
     public void deserializeFromMsgPack(Blackhole blackhole) {
-        blackhole.consume(5);
-    }*/
-} 
+        blackhole.consume(DocumentFeatures.fromMsgPack(msgpack));
+    }
+
+    @Benchmark
+    public void deserializeWithCodec(Blackhole blackhole) {
+        blackhole.consume(FeaturesMsgpackCodec.decode(codecMsgpack));
+    }
+
+    /* the way DocumentFeatures used to serialize, with a new mapper per call */
+
+    @Benchmark
+    public void toJsonNewMapper(Blackhole blackhole) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        blackhole.consume(mapper.valueToTree(features));
+    }
+
+    @Benchmark
+    public void serializeToMsgPackNewMapper(Blackhole blackhole) throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper(new MessagePackFactory());
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        blackhole.consume(mapper.writeValueAsBytes(features));
+    }
+}